@@ -26,6 +26,9 @@ public class MoockApplication {
 			if(roleRepository.findByName("USER").isEmpty()) {
 				roleRepository.save(Role.builder().name("USER").build());
 			}
+			if(roleRepository.findByName("ADMIN").isEmpty()) {
+				roleRepository.save(Role.builder().name("ADMIN").build());
+			}
 		};
 	}
 }
@@ -0,0 +1,28 @@
+package com.mock.io.auth;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+
+@Component
+public class ActivationCodeGenerator {
+
+    private static final String CHARACTERS = "0123456789";
+    private static final int CODE_LENGTH = 6;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Generates a random numeric activation code.
+     *
+     * @return a six digit activation code
+     */
+    public String generate() {
+        StringBuilder codeBuilder = new StringBuilder(CODE_LENGTH);
+        for(int i = 0; i < CODE_LENGTH; i++) {
+            int randomIndex = secureRandom.nextInt(CHARACTERS.length());
+            codeBuilder.append(CHARACTERS.charAt(randomIndex));
+        }
+        return codeBuilder.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.mock.io.auth;
+
+public enum ActivationMode {
+    /**
+     * A random code is stored in the token table and looked up on activation.
+     */
+    TOKEN,
+    /**
+     * The activation link carries an HMAC signed payload and nothing is stored on registration.
+     */
+    SIGNED
+}
@@ -0,0 +1,94 @@
+package com.mock.io.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Coalesces activation email re-sends per user within a time window.
+ * The state is a fixed size array of longs, each packing a user id in the high 32 bits and the epoch second
+ * of its last re-send in the low 32 bits, so memory stays constant whatever the number of users.
+ * Two users hashing to the same slot simply evict each other, which at worst lets an extra email through.
+ */
+@Component
+public class ActivationResendThrottle {
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long windowSeconds;
+    private final Clock clock;
+    private final Counter suppressedResends;
+    private final Counter allowedResends;
+
+    @Autowired
+    public ActivationResendThrottle(
+            @Value("${application.security.activation.resend-window:PT2M}") Duration window,
+            @Value("${application.security.activation.resend-slots:65536}") int slots,
+            MeterRegistry meterRegistry
+    ) {
+        this(window, slots, meterRegistry, Clock.systemUTC());
+    }
+
+    ActivationResendThrottle(Duration window, int slots, MeterRegistry meterRegistry, Clock clock) {
+        int size = Integer.highestOneBit(Math.max(slots, 1) * 2 - 1);
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.windowSeconds = window.toSeconds();
+        this.clock = clock;
+        this.suppressedResends = Counter.builder("activation.resend")
+                .description("Activation email re-sends, by outcome")
+                .tag("outcome", "suppressed")
+                .register(meterRegistry);
+        this.allowedResends = Counter.builder("activation.resend")
+                .description("Activation email re-sends, by outcome")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a re-send for the given user unless one was already recorded within the window.
+     *
+     * @param userId the id of the user asking for a new activation email
+     * @return true if the email should be sent, false if it is coalesced with a recent one
+     */
+    public boolean tryAcquire(int userId) {
+        int slot = slotOf(userId);
+        long now = clock.instant().getEpochSecond();
+        long next = pack(userId, now);
+
+        while (true) {
+            long current = slots.get(slot);
+            if (current != 0 && userIdOf(current) == userId && now - secondsOf(current) < windowSeconds) {
+                suppressedResends.increment();
+                return false;
+            }
+            if (slots.compareAndSet(slot, current, next)) {
+                allowedResends.increment();
+                return true;
+            }
+        }
+    }
+
+    private int slotOf(int userId) {
+        int hash = userId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static long pack(int userId, long epochSecond) {
+        return ((long) userId << 32) | (epochSecond & 0xFFFFFFFFL);
+    }
+
+    private static int userIdOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static long secondsOf(long packed) {
+        return packed & 0xFFFFFFFFL;
+    }
+}
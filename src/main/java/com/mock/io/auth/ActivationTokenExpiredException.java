@@ -0,0 +1,13 @@
+package com.mock.io.auth;
+
+public class ActivationTokenExpiredException extends RuntimeException {
+
+    /**
+     * @param resent whether a new token was sent along, or not because one was already sent within the re-send window
+     */
+    public ActivationTokenExpiredException(boolean resent) {
+        super(resent
+                ? "Activation token has expired. A new token has been sent to the same email address."
+                : "Activation token has expired. A new token was already sent to the same email address recently, please use it.");
+    }
+}
@@ -0,0 +1,146 @@
+package com.mock.io.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies stateless activation tokens.
+ * A token is {@code base64url(payload).base64url(mac)} where the payload holds the user id, the expiry,
+ * a digest of the email and a digest of the password hash. The password digest acts as a nonce bound to
+ * the account state: once the password changes, links issued before are no longer accepted.
+ * Tokens are signed with a key of their own, so that a leaked activation key cannot be used to forge access tokens,
+ * nor the other way round.
+ */
+@Component
+public class ActivationTokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DIGEST_LENGTH = 8;
+    private static final int MAC_LENGTH = 16;
+    private static final int PAYLOAD_LENGTH = Integer.BYTES + Long.BYTES + 2 * DIGEST_LENGTH;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec secretKey;
+
+    /**
+     * @param secretKey the key activation tokens are signed with
+     * @param jwtSecretKey the key access tokens are signed with, which the activation key must differ from
+     * @throws IllegalStateException if the activation key is blank or is the key of access tokens
+     */
+    public ActivationTokenSigner(
+            @Value("${application.security.activation.secret-key}") String secretKey,
+            @Value("${application.security.jwt.secret-key}") String jwtSecretKey
+    ) {
+        if (secretKey == null || secretKey.isBlank()) {
+            throw new IllegalStateException("application.security.activation.secret-key must be set");
+        }
+        if (secretKey.equals(jwtSecretKey)) {
+            throw new IllegalStateException("application.security.activation.secret-key must differ from the JWT secret key");
+        }
+        this.secretKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * Tells whether the given token was issued by this signer rather than stored in the token table.
+     *
+     * @param token the token received on activation
+     * @return true if the token has the signed format
+     */
+    public boolean isSigned(String token) {
+        return token != null && token.indexOf('.') > 0;
+    }
+
+    /**
+     * Issues a signed activation token for the given account.
+     *
+     * @param userId the id of the account to activate
+     * @param email the email of the account
+     * @param passwordHash the stored password hash of the account
+     * @param expiresAt the instant after which the token is rejected
+     * @return the encoded token
+     */
+    public String sign(Integer userId, String email, String passwordHash, Instant expiresAt) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .putInt(userId)
+                .putLong(expiresAt.getEpochSecond())
+                .put(digest(email))
+                .put(digest(passwordHash))
+                .array();
+
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(payload));
+    }
+
+    /**
+     * Checks the signature of the given token and decodes its payload.
+     * Expiry is not checked here so that callers can tell an expired link from a forged one.
+     *
+     * @param token the token received on activation
+     * @return the decoded payload, or an empty {@link Optional} if the token is malformed or its signature does not match
+     */
+    public Optional<SignedActivation> verify(String token) {
+        if (!isSigned(token)) {
+            return Optional.empty();
+        }
+
+        int separator = token.indexOf('.');
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(mac(payload), signature)) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int userId = buffer.getInt();
+        Instant expiresAt = Instant.ofEpochSecond(buffer.getLong());
+        byte[] emailDigest = new byte[DIGEST_LENGTH];
+        byte[] stateDigest = new byte[DIGEST_LENGTH];
+        buffer.get(emailDigest).get(stateDigest);
+
+        return Optional.of(new SignedActivation(userId, expiresAt, emailDigest, stateDigest));
+    }
+
+    /**
+     * Returns the truncated SHA-256 digest used in the payload.
+     * It matches {@code substring(sha256(convert_to(value, 'UTF8')) from 1 for 8)} on the database side.
+     *
+     * @param value the value to digest
+     * @return the first eight bytes of the SHA-256 digest of the UTF-8 encoded value
+     */
+    public static byte[] digest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, DIGEST_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return Arrays.copyOf(mac.doFinal(payload), MAC_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign the activation token", e);
+        }
+    }
+}
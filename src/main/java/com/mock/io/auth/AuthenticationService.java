@@ -2,17 +2,20 @@ package com.mock.io.auth;
 
 import com.mock.io.email.EmailService;
 import com.mock.io.email.EmailTemplateName;
+import com.mock.io.exceptions.ConflictException;
 import com.mock.io.role.Role;
 import com.mock.io.role.RoleRepository;
 import com.mock.io.security.JwtService;
 import com.mock.io.user.Token;
 import com.mock.io.user.TokenRepository;
 import com.mock.io.user.User;
+import com.mock.io.user.UserEmailFilter;
 import com.mock.io.user.UserRepository;
 import com.mock.io.validators.ObjectsValidator;
 import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -20,16 +23,23 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
+    public static final Duration ACTIVATION_TOKEN_VALIDITY = Duration.ofMinutes(15);
+
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
+    @Value("${application.security.activation.mode:TOKEN}")
+    private ActivationMode activationMode;
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
@@ -38,21 +48,25 @@ public class AuthenticationService {
     private final EmailService emailService;
     private final ObjectsValidator<RegisterRequest> validator;
     private final RoleRepository roleRepository;
+    private final ActivationCodeGenerator activationCodeGenerator;
+    private final ActivationTokenSigner activationTokenSigner;
+    private final ActivationResendThrottle activationResendThrottle;
+    private final UserEmailFilter userEmailFilter;
 
     /**
      * Registers a new user.
+     * The lookup of the email is skipped when the email filter knows it is not taken, the unique constraint
+     * on emails catching the registrations of the same email that race with each other.
      *
      * @param registerRequest the request containing the user's registration details
-     * @throws IllegalStateException if the provided email is already taken
+     * @throws ConflictException if the provided email is already taken
      */
     public void register(RegisterRequest registerRequest) throws MessagingException {
         validator.validate(registerRequest);
 
-        User optionalUser = userRepository.findByEmail(registerRequest.email())
-                    .orElse(null);
-
-        if(optionalUser != null) {
-            throw new IllegalStateException("Email [%s] is already taken".formatted(registerRequest.email()));
+        if (userEmailFilter.mightExist(registerRequest.email())
+                && userRepository.findByEmail(registerRequest.email()).isPresent()) {
+            throw new ConflictException("Email [%s] is already taken", registerRequest.email());
         }
 
         Role userRole = roleRepository.findByName("USER")
@@ -68,46 +82,84 @@ public class AuthenticationService {
                 .enabled(false)
                 .locked(false)
                 .build();
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Email [%s] is already taken", registerRequest.email());
+        }
+        userEmailFilter.add(savedUser.getEmail());
         sendValidationEmail(savedUser);
     }
 
     private void sendValidationEmail(User user) throws MessagingException {
-        String token = generateAndSaveActivationToken(user);
+        if (activationMode == ActivationMode.SIGNED) {
+            String token = signActivationToken(user);
+            sendActivationEmail(user, token, activationUrl + "?token=" + token);
+        } else {
+            sendActivationEmail(user, generateAndSaveActivationToken(user), activationUrl);
+        }
+    }
+
+    /**
+     * Sends a new activation email unless one was already sent to the user within the re-send window.
+     * In token mode a pending token that is still valid is sent again instead of creating a new one.
+     *
+     * @return true if an email was sent, false if it was coalesced with one sent recently
+     */
+    private boolean resendValidationEmail(User user) throws MessagingException {
+        if (!activationResendThrottle.tryAcquire(user.getId())) {
+            return false;
+        }
+
+        if (activationMode == ActivationMode.TOKEN) {
+            Optional<Token> pendingToken = tokenRepository
+                    .findFirstByUserIdAndValidatedAtIsNullAndExpiresAtAfterOrderByExpiresAtDesc(
+                            user.getId(),
+                            LocalDateTime.now()
+                    );
+            if (pendingToken.isPresent()) {
+                sendActivationEmail(user, pendingToken.get().getToken(), activationUrl);
+                return true;
+            }
+        }
+
+        sendValidationEmail(user);
+        return true;
+    }
 
+    private void sendActivationEmail(User user, String token, String confirmationUrl) throws MessagingException {
         emailService.sendEmail(
                 user.getEmail(),
                 user.fullName(),
                 EmailTemplateName.ACTIVATE_ACCOUNT,
-                activationUrl,
+                confirmationUrl,
                 token,
                 "Account Activation"
         );
     }
 
+    private String signActivationToken(User user) {
+        return activationTokenSigner.sign(
+                user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                Instant.now().plus(ACTIVATION_TOKEN_VALIDITY)
+        );
+    }
+
     private String generateAndSaveActivationToken(User user) {
-        String generatedToken = generateActivationCode();
+        String generatedToken = activationCodeGenerator.generate();
         Token token = Token.builder()
                 .token(generatedToken)
                 .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(15))
+                .expiresAt(LocalDateTime.now().plus(ACTIVATION_TOKEN_VALIDITY))
                 .user(user)
                 .build();
         tokenRepository.save(token);
         return generatedToken;
     }
 
-    private String generateActivationCode() {
-        String characters = "0123456789";
-        StringBuilder codeBuilder = new StringBuilder();
-        SecureRandom secureRandom = new SecureRandom();
-        for(int i = 0; i < 6; i++) {
-            int randomIndex = secureRandom.nextInt(characters.length());
-            codeBuilder.append(characters.charAt(randomIndex));
-        }
-        return codeBuilder.toString();
-    }
-
     /**
      * Authenticates a user by validating their email and password.
      *
@@ -133,14 +185,28 @@ public class AuthenticationService {
     }
 
 
-    @Transactional
+    /**
+     * Activates the account the given token was issued for.
+     * Signed tokens are verified in memory and applied with a single conditional update,
+     * other tokens are looked up in the token table.
+     *
+     * @param token the activation token received by email
+     * @throws RuntimeException if the token is invalid
+     * @throws ActivationTokenExpiredException if the token has expired, in which case a new one is sent
+     *         unless one was already sent within the re-send window
+     */
+    @Transactional(noRollbackFor = ActivationTokenExpiredException.class)
     public void activateAccount(String token) throws MessagingException {
+        if (activationTokenSigner.isSigned(token)) {
+            activateSignedAccount(token);
+            return;
+        }
+
         Token savedToken = tokenRepository.findByToken(token)
                 .orElseThrow(() -> new RuntimeException("Invalid token"));
 
         if (LocalDateTime.now().isAfter(savedToken.getExpiresAt())) {
-            sendValidationEmail(savedToken.getUser());
-            throw new RuntimeException("Activation token as expired. A new token has been sent to the same email address.");
+            throw new ActivationTokenExpiredException(resendValidationEmail(savedToken.getUser()));
         }
 
         User user = userRepository.findById(savedToken.getUser().getId())
@@ -151,4 +217,30 @@ public class AuthenticationService {
         savedToken.setValidatedAt(LocalDateTime.now());
         tokenRepository.save(savedToken);
     }
+
+    private void activateSignedAccount(String token) throws MessagingException {
+        SignedActivation activation = activationTokenSigner.verify(token)
+                .orElseThrow(() -> new RuntimeException("Invalid token"));
+
+        if (activation.isExpired(Instant.now())) {
+            User user = userRepository.findById(activation.userId())
+                    .filter(candidate -> !candidate.isEnabled())
+                    .filter(candidate -> MessageDigest.isEqual(
+                            ActivationTokenSigner.digest(candidate.getEmail()), activation.emailDigest()))
+                    .filter(candidate -> MessageDigest.isEqual(
+                            ActivationTokenSigner.digest(candidate.getPassword()), activation.stateDigest()))
+                    .orElseThrow(() -> new RuntimeException("Invalid token"));
+            throw new ActivationTokenExpiredException(resendValidationEmail(user));
+        }
+
+        int enabled = userRepository.enableIfUnchanged(
+                activation.userId(),
+                activation.emailDigest(),
+                activation.stateDigest()
+        );
+
+        if (enabled == 0) {
+            throw new RuntimeException("Invalid token");
+        }
+    }
 }
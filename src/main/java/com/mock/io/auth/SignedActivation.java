@@ -0,0 +1,14 @@
+package com.mock.io.auth;
+
+import java.time.Instant;
+
+public record SignedActivation(
+        Integer userId,
+        Instant expiresAt,
+        byte[] emailDigest,
+        byte[] stateDigest
+) {
+    public boolean isExpired(Instant now) {
+        return now.isAfter(expiresAt);
+    }
+}
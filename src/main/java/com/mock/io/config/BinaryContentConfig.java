@@ -0,0 +1,66 @@
+package com.mock.io.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Lets internal clients exchange request and response bodies as CBOR ({@code application/cbor})
+ * or Smile ({@code application/x-jackson-smile}) instead of JSON, chosen through the {@code Accept}
+ * and {@code Content-Type} headers.
+ * The binary converters are registered right after the JSON one, so that JSON stays the default
+ * whenever a client accepts any content type.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryContentConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+
+    /**
+     * Builds a mapper for a binary format with the application's Jackson settings, except that dates
+     * are written as arrays of numbers, which are far more compact than ISO strings once binary encoded.
+     *
+     * @param builder the builder holding the application's Jackson settings
+     * @param factory the factory of the binary format
+     * @return the mapper
+     */
+    public static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        return builder
+                .factory(factory)
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        int position = Math.min(json + 1, converters.size());
+
+        converters.add(position, new MappingJackson2SmileHttpMessageConverter(
+                binaryMapper(objectMapperBuilders.getObject(), new SmileFactory())
+        ));
+        converters.add(position, new MappingJackson2CborHttpMessageConverter(
+                binaryMapper(objectMapperBuilders.getObject(), new CBORFactory())
+        ));
+    }
+}
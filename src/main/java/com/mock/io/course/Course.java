@@ -1,12 +1,16 @@
 package com.mock.io.course;
 
 import com.mock.io.author.Author;
+import com.mock.io.persistence.PooledSequenceGenerator;
 import com.mock.io.section.Section;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -23,10 +27,10 @@ import java.util.List;
 @EntityListeners(AuditingEntityListener.class)
 public class Course {
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "course_id_sequence",
-            sequenceName = "course_id_sequence",
-            allocationSize = 1
+            type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "course_id_sequence")
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -0,0 +1,49 @@
+package com.mock.io.customer;
+
+/**
+ * The coalesced changes buffered for a customer in write-behind mode, absent fields being null.
+ * Later changes to a field replace earlier ones, as if the updates had been applied one after the other.
+ */
+record BufferedCustomerUpdate(
+        Integer id,
+        String name,
+        String email,
+        Integer age,
+        Integer lastModifiedBy
+) {
+    static BufferedCustomerUpdate empty(Integer id) {
+        return new BufferedCustomerUpdate(id, null, null, null, null);
+    }
+
+    BufferedCustomerUpdate merge(NewCustomerRequest request, Integer auditor) {
+        return new BufferedCustomerUpdate(
+                id,
+                request.name() != null ? request.name() : name,
+                request.email() != null ? request.email() : email,
+                request.age() != null ? request.age() : age,
+                auditor
+        );
+    }
+
+    BufferedCustomerUpdate merge(BufferedCustomerUpdate later) {
+        return merge(later.toRequest(), later.lastModifiedBy());
+    }
+
+    CustomerDTO applyTo(CustomerDTO customer) {
+        return new CustomerDTO(
+                customer.id(),
+                name != null ? name : customer.name(),
+                email != null ? email : customer.email(),
+                age != null ? age : customer.age(),
+                customer.createDate(),
+                customer.lastModified(),
+                customer.createdBy(),
+                customer.lastModifiedBy(),
+                customer.version()
+        );
+    }
+
+    NewCustomerRequest toRequest() {
+        return new NewCustomerRequest(name, email, age, null);
+    }
+}
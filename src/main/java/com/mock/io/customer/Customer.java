@@ -1,10 +1,18 @@
 package com.mock.io.customer;
 
+import com.mock.io.persistence.CacheRegions;
+import com.mock.io.persistence.PooledSequenceGenerator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -18,13 +26,20 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.CUSTOMER)
+@Table(
+        indexes = @Index(name = "customer_created_date_id_idx", columnList = "created_date, id"),
+        uniqueConstraints = @UniqueConstraint(name = "customer_email_unique", columnNames = "email")
+)
 @EntityListeners(AuditingEntityListener.class)
 public class Customer {
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "customer_id_sequence",
-            sequenceName = "customer_id_sequence",
-            allocationSize = 1
+            type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "customer_id_sequence")
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -35,6 +50,9 @@ public class Customer {
     private String name;
     private String email;
     private String password;
+    @Version
+    @Column(columnDefinition = "integer default 0 not null")
+    private Integer version;
 
     @CreatedDate
     @Column(
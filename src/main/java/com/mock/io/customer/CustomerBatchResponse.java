@@ -0,0 +1,16 @@
+package com.mock.io.customer;
+
+import java.util.List;
+
+public record CustomerBatchResponse(
+        int found,
+        int notFound,
+        List<CustomerBatchResult> results
+) {
+    static CustomerBatchResponse of(List<CustomerBatchResult> results) {
+        int found = (int) results.stream()
+                .filter(CustomerBatchResult::found)
+                .count();
+        return new CustomerBatchResponse(found, results.size() - found, results);
+    }
+}
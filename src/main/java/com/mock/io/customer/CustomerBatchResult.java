@@ -0,0 +1,15 @@
+package com.mock.io.customer;
+
+public record CustomerBatchResult(
+        Integer id,
+        boolean found,
+        CustomerDTO customer
+) {
+    static CustomerBatchResult found(Integer id, CustomerDTO customer) {
+        return new CustomerBatchResult(id, true, customer);
+    }
+
+    static CustomerBatchResult notFound(Integer id) {
+        return new CustomerBatchResult(id, false, null);
+    }
+}
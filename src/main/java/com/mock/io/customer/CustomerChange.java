@@ -0,0 +1,17 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change reported by the change feed. Deleted customers come as tombstones, without a customer.
+ * The id of the transaction that made the change positions it in the feed, and is only exposed through cursors.
+ */
+public record CustomerChange(
+        Integer id,
+        CustomerChangeType type,
+        LocalDateTime changedAt,
+        CustomerDTO customer,
+        @JsonIgnore long transactionId
+) {}
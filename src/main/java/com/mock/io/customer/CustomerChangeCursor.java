@@ -0,0 +1,75 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last change handed to a client by the change feed, as an opaque token.
+ * Changes are ordered by the id of the transaction that made them and then by customer id.
+ * The cursor also carries the time it was handed out, so that a cursor older than the tombstone retention,
+ * which may have missed deletions, can be told apart; the start of the feed has no such time.
+ */
+public record CustomerChangeCursor(
+        long transactionId,
+        Integer id,
+        LocalDateTime issuedAt
+) {
+    public static final CustomerChangeCursor START = new CustomerChangeCursor(-1, 0, null);
+    private static final String SEPARATOR = "|";
+    private static final String START_VALUE = "start";
+
+    public static CustomerChangeCursor after(CustomerChange change, LocalDateTime issuedAt) {
+        return new CustomerChangeCursor(change.transactionId(), change.id(), issuedAt);
+    }
+
+    /**
+     * Returns the same position, handed out again at the given time.
+     *
+     * @param issuedAt the time the cursor is handed out
+     * @return this cursor at the given time, or the start of the feed if this is the start
+     */
+    public CustomerChangeCursor reissuedAt(LocalDateTime issuedAt) {
+        return isStart() ? this : new CustomerChangeCursor(transactionId, id, issuedAt);
+    }
+
+    public boolean isStart() {
+        return issuedAt == null;
+    }
+
+    public String encode() {
+        String value = isStart() ? START_VALUE : transactionId + SEPARATOR + id + SEPARATOR + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param token the opaque cursor
+     * @return the decoded cursor
+     * @throws InvalidRequestException if the token is malformed
+     */
+    public static CustomerChangeCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (value.equals(START_VALUE)) {
+                return START;
+            }
+
+            String[] parts = value.split("\\|");
+            if (parts.length == 3) {
+                return new CustomerChangeCursor(
+                        Long.parseLong(parts[0]),
+                        Integer.valueOf(parts[1]),
+                        LocalDateTime.parse(parts[2])
+                );
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // reported below
+        }
+        throw new InvalidRequestException("Cursor [%s] is not valid", token);
+    }
+}
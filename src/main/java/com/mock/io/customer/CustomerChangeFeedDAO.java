@@ -0,0 +1,109 @@
+package com.mock.io.customer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CustomerChangeFeedDAO {
+
+    // every transaction with a lower id has committed or aborted, so no change below it can still appear
+    private static final String WATERMARK = "pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    // both branches are keyset scans of their own index, merged and cut to the page size
+    static final String CHANGES_AFTER = """
+            (
+                select id, name, email, age, created_date, last_modified_date, created_by, last_modified_by, version,
+                       coalesce(last_modified_date, created_date) as changed_at, change_xid, false as deleted
+                from customer
+                where (change_xid, id) > (:xid, :id)
+                  and change_xid < %1$s
+                order by change_xid, id
+                limit :limit
+            )
+            union all
+            (
+                select customer_id, null, null, null, null, null, null, null, null,
+                       deleted_at, change_xid, true
+                from customer_tombstone
+                where (change_xid, customer_id) > (:xid, :id)
+                  and change_xid < %1$s
+                order by change_xid, customer_id
+                limit :limit
+            )
+            order by change_xid, id
+            limit :limit
+            """.formatted(WATERMARK);
+    private static final String DELETE_TOMBSTONES = """
+            delete from customer_tombstone
+            where customer_id in (
+                select customer_id
+                from customer_tombstone
+                where deleted_at < :before
+                limit :limit
+            )
+            """;
+
+    private static final RowMapper<CustomerChange> CHANGE_MAPPER = (rs, rowNum) -> {
+        Integer id = rs.getInt("id");
+        LocalDateTime changedAt = rs.getTimestamp("changed_at").toLocalDateTime();
+        long transactionId = rs.getLong("change_xid");
+
+        if (rs.getBoolean("deleted")) {
+            return new CustomerChange(id, CustomerChangeType.DELETED, changedAt, null, transactionId);
+        }
+
+        Timestamp lastModifiedDate = rs.getTimestamp("last_modified_date");
+        CustomerDTO customer = new CustomerDTO(
+                id,
+                rs.getString("name"),
+                rs.getString("email"),
+                (Integer) rs.getObject("age"),
+                rs.getTimestamp("created_date").toLocalDateTime(),
+                lastModifiedDate == null ? null : lastModifiedDate.toLocalDateTime(),
+                (Integer) rs.getObject("created_by"),
+                (Integer) rs.getObject("last_modified_by"),
+                rs.getInt("version")
+        );
+        CustomerChangeType type = lastModifiedDate == null ? CustomerChangeType.CREATED : CustomerChangeType.UPDATED;
+        return new CustomerChange(id, type, changedAt, customer, transactionId);
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds the customers created, updated or deleted after a cursor, in the order their transactions started.
+     * A customer changed several times since the cursor appears once, with its latest state.
+     * Only the changes of transactions older than every transaction still running are returned:
+     * a transaction committing late is held back until it ends, instead of slipping behind the cursor.
+     *
+     * @param cursor the position of the last change already seen
+     * @param limit the maximum number of changes to return
+     * @return the changes after the cursor, ordered by transaction id and then by customer id
+     */
+    public List<CustomerChange> findChangesAfter(CustomerChangeCursor cursor, int limit) {
+        return jdbcTemplate.query(CHANGES_AFTER, new MapSqlParameterSource()
+                .addValue("xid", cursor.transactionId())
+                .addValue("id", cursor.id())
+                .addValue("limit", limit), CHANGE_MAPPER);
+    }
+
+    /**
+     * Deletes a batch of the tombstones of customers deleted before the given time.
+     *
+     * @param before the time before which tombstones are deleted
+     * @param limit the maximum number of tombstones to delete
+     * @return the number of deleted tombstones
+     */
+    public int deleteTombstonesBefore(LocalDateTime before, int limit) {
+        return jdbcTemplate.update(DELETE_TOMBSTONES, new MapSqlParameterSource()
+                .addValue("before", Timestamp.valueOf(before))
+                .addValue("limit", limit));
+    }
+}
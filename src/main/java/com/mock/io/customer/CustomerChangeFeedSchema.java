@@ -0,0 +1,52 @@
+package com.mock.io.customer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates what backs {@link CustomerChangeFeedDAO#findChangesAfter} and cannot be declared on the entities:
+ * a {@code change_xid} column on customers and tombstones, set by a trigger to the id of the transaction
+ * that last wrote the row, whatever the code path writing it, and a btree index on that column and the id,
+ * so that the feed reads only the changes after the cursor instead of scanning the tables.
+ * Rows written before the column existed get 0 and are reported first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerChangeFeedSchema implements ApplicationRunner {
+
+    private static final String CREATE_TRIGGER_FUNCTION = """
+            create or replace function set_change_xid() returns trigger as $$
+            begin
+                new.change_xid := pg_current_xact_id()::text::bigint;
+                return new;
+            end
+            $$ language plpgsql
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute(CREATE_TRIGGER_FUNCTION);
+        trackChanges("customer", "id");
+        trackChanges("customer_tombstone", "customer_id");
+        log.info("Customer change feed columns, triggers and indexes are in place");
+    }
+
+    private void trackChanges(String table, String idColumn) {
+        jdbcTemplate.execute("alter table %s add column if not exists change_xid bigint not null default 0"
+                .formatted(table));
+        jdbcTemplate.execute("""
+                create or replace trigger %1$s_change_xid
+                before insert or update on %1$s
+                for each row execute function set_change_xid()
+                """.formatted(table));
+        jdbcTemplate.execute("create index if not exists %1$s_change_xid_id_idx on %1$s (change_xid, %2$s)"
+                .formatted(table, idColumn));
+    }
+}
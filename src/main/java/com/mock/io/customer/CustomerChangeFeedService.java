@@ -0,0 +1,83 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class CustomerChangeFeedService {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final CustomerChangeFeedDAO changeFeedDAO;
+    private final Duration tombstoneRetention;
+    private final Clock clock;
+
+    @Autowired
+    public CustomerChangeFeedService(
+            CustomerChangeFeedDAO changeFeedDAO,
+            @Value("${application.customer-feed.tombstone-retention:P30D}") Duration tombstoneRetention
+    ) {
+        this(changeFeedDAO, tombstoneRetention, Clock.systemDefaultZone());
+    }
+
+    CustomerChangeFeedService(CustomerChangeFeedDAO changeFeedDAO, Duration tombstoneRetention, Clock clock) {
+        this.changeFeedDAO = changeFeedDAO;
+        this.tombstoneRetention = tombstoneRetention;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the customers created, updated or deleted since a cursor, deletions coming as tombstones.
+     * Changes are read with a keyset scan of the indexes on the transaction that last changed customers and
+     * tombstones, so the cost of a call is proportional to the number of changes returned, not to the size of the table.
+     * Changes of transactions younger than the oldest one still running are held back, however long it runs,
+     * so that a transaction committing late cannot slip behind a cursor already handed out.
+     *
+     * @param cursor the cursor returned by the previous call, or null to start from the beginning
+     * @param size the maximum number of changes to return, or null for the default page size
+     * @return the changes, and the cursor to resume from, which is at the same position as the given one
+     * when nothing changed
+     * @throws InvalidRequestException if the cursor is malformed or older than the tombstone retention,
+     * or the page size is out of bounds
+     */
+    @Transactional(readOnly = true)
+    public CustomerChangePage getChanges(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Page size should be between 1 and %s", MAX_PAGE_SIZE);
+        }
+
+        CustomerChangeCursor after = cursor == null ? CustomerChangeCursor.START : CustomerChangeCursor.decode(cursor);
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        // the tombstones of deletions the client has not seen yet may have been purged
+        if (!after.isStart() && after.issuedAt().isBefore(now.minus(tombstoneRetention))) {
+            throw new InvalidRequestException(
+                    "Cursor is older than the tombstone retention of %s, changes should be read again from the start",
+                    tombstoneRetention
+            );
+        }
+
+        // one extra change tells whether there are more without a count query
+        List<CustomerChange> changes = changeFeedDAO.findChangesAfter(after, pageSize + 1);
+
+        List<CustomerChange> items = changes.size() > pageSize
+                ? changes.subList(0, pageSize)
+                : changes;
+
+        CustomerChangeCursor next = items.isEmpty()
+                ? after.reissuedAt(now)
+                : CustomerChangeCursor.after(items.get(items.size() - 1), now);
+
+        return new CustomerChangePage(items, next.encode(), changes.size() > pageSize);
+    }
+}
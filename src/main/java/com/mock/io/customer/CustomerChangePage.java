@@ -0,0 +1,9 @@
+package com.mock.io.customer;
+
+import java.util.List;
+
+public record CustomerChangePage(
+        List<CustomerChange> changes,
+        String nextCursor,
+        boolean hasMore
+) {}
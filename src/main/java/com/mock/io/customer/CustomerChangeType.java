@@ -0,0 +1,7 @@
+package com.mock.io.customer;
+
+public enum CustomerChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
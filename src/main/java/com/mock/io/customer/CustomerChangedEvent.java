@@ -0,0 +1,8 @@
+package com.mock.io.customer;
+
+/**
+ * Published whenever customers are created, updated or deleted.
+ *
+ * @param customerId the id of the changed customer, or null when several customers changed at once
+ */
+public record CustomerChangedEvent(Integer customerId) {}
@@ -5,10 +5,19 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 
 @RestController
@@ -17,15 +26,34 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerExportService customerExportService;
+    private final CustomerImportService customerImportService;
+    private final CustomerChangeFeedService customerChangeFeedService;
+    private final CustomerResponseCache customerResponseCache;
+    private final CustomerStatistics customerStatistics;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(
+            CustomerService customerService,
+            CustomerExportService customerExportService,
+            CustomerImportService customerImportService,
+            CustomerChangeFeedService customerChangeFeedService,
+            CustomerResponseCache customerResponseCache,
+            CustomerStatistics customerStatistics
+    ) {
         this.customerService = customerService;
+        this.customerExportService = customerExportService;
+        this.customerImportService = customerImportService;
+        this.customerChangeFeedService = customerChangeFeedService;
+        this.customerResponseCache = customerResponseCache;
+        this.customerStatistics = customerStatistics;
     }
 
 
     @Operation(
-            description = "Get Endpoint for Customers",
-            summary = "Fetch all Customers",
+            description = "Get Endpoint for Customers, paginated with an opaque cursor. "
+                    + "Pages carry an ETag and are answered with 304 when it matches If-None-Match. "
+                    + "With fields, only the listed fields of every Customer are selected and returned, without an ETag",
+            summary = "Fetch a page of Customers",
             responses = {
                     @ApiResponse(
                             description = "Success",
@@ -33,10 +61,15 @@ public class CustomerController {
                             content = {
                                     @Content(
                                             mediaType = "application/json",
-                                            schema = @Schema(implementation = CustomerDTO.class)
+                                            schema = @Schema(implementation = CustomerPage.class)
                                     )
                             }
                     ),
+                    @ApiResponse(
+                            description = "Page unchanged since the ETag given in If-None-Match",
+                            responseCode = "304",
+                            content = @Content
+                    ),
                     @ApiResponse(
                             description = "Unauthorized / Invalid Token",
                             responseCode = "403",
@@ -45,13 +78,212 @@ public class CustomerController {
             }
     )
     @GetMapping
-    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
-        return ResponseEntity.ok(customerService.getAllCustomers());
+    public ResponseEntity<?> getAllCustomers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "sort", defaultValue = "ID") CustomerSort sort,
+            @RequestParam(value = "fields", required = false) String fields
+    ) {
+        if (fields != null) {
+            return ResponseEntity.ok(customerService.getCustomersPage(cursor, size, sort, CustomerFields.parse(fields)));
+        }
+
+        CustomerPage page = customerService.getCustomersPage(cursor, size, sort);
+        // a matching If-None-Match is answered with 304 before the page is serialised
+        return ResponseEntity.ok()
+                .eTag(CustomerETags.of(page))
+                .body(page);
+    }
+
+
+    @Operation(
+            description = "Returns the Customers created, updated or deleted since a cursor, oldest change first, "
+                    + "deletions coming as tombstones. Clients keep the returned cursor to resume from it, "
+                    + "and read again from the start once it is older than the tombstone retention",
+            summary = "Fetch the changes to Customers since a cursor",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = {
+                                    @Content(
+                                            mediaType = "application/json",
+                                            schema = @Schema(implementation = CustomerChangePage.class)
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "Cursor is malformed or older than the tombstone retention",
+                            responseCode = "400",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @GetMapping("changes")
+    public ResponseEntity<CustomerChangePage> getCustomerChanges(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return ResponseEntity.ok(customerChangeFeedService.getChanges(cursor, size));
+    }
+
+
+    @Operation(
+            description = "Returns the number of Customers, their age distribution and the number of Customers "
+                    + "created on every day of a range, 30 days up to today by default. "
+                    + "Answered from in-memory counters, whatever the number of Customers",
+            summary = "Fetch statistics over Customers",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = {
+                                    @Content(
+                                            mediaType = "application/json",
+                                            schema = @Schema(implementation = CustomerStatisticsResponse.class)
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @GetMapping("statistics")
+    public ResponseEntity<CustomerStatisticsResponse> getCustomerStatistics(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(customerStatistics.getStatistics(from, to));
+    }
+
+
+    @Operation(
+            description = "Searches Customers by name and email with index-backed similarity, substring and token matching",
+            summary = "Search Customers, best matches first",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = {
+                                    @Content(
+                                            mediaType = "application/json",
+                                            schema = @Schema(implementation = CustomerSearchPage.class)
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @GetMapping("search")
+    public ResponseEntity<CustomerSearchPage> searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return ResponseEntity.ok(customerService.searchCustomers(query, page, size));
+    }
+
+
+    @Operation(
+            description = "Finds Customers matching any of the given criteria, served from a cache until Customers change",
+            summary = "Search Customers by criteria",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200"
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @PostMapping("search")
+    public ResponseEntity<List<CustomerDTO>> searchCustomersByCriteria(@RequestBody SearchRequest request) {
+        return ResponseEntity.ok(customerService.searchCustomersByCriteria(request));
+    }
+
+
+    @Operation(
+            description = "Streams every Customer as NDJSON or CSV without loading the table in memory",
+            summary = "Export all Customers",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200"
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(value = "format", defaultValue = "NDJSON") CustomerDataFormat format
+    ) {
+        StreamingResponseBody body = outputStream -> customerExportService.exportCustomers(format, outputStream);
+        return ResponseEntity
+                .ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=customers." + format.getExtension())
+                .body(body);
+    }
+
+
+    @Operation(
+            description = "Imports Customers from a CSV or NDJSON body, loading them with COPY and skipping taken emails",
+            summary = "Bulk import Customers",
+            responses = {
+                    @ApiResponse(
+                            description = "Import processed, rejected lines are listed with their errors",
+                            responseCode = "200",
+                            content = {
+                                    @Content(
+                                            mediaType = "application/json",
+                                            schema = @Schema(implementation = CustomerImportResponse.class)
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "CSV header is missing a column",
+                            responseCode = "400",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @PostMapping("import")
+    public ResponseEntity<CustomerImportResponse> importCustomers(
+            @RequestParam(value = "format", defaultValue = "CSV") CustomerDataFormat format,
+            InputStream inputStream
+    ) throws IOException {
+        return ResponseEntity.ok(customerImportService.importCustomers(format, inputStream));
     }
 
 
     @Operation(
-            description = "Get Endpoint for a Single Customers",
+            description = "Get Endpoint for a Single Customers. "
+                    + "Customers carry an ETag and are answered with 304 when it matches If-None-Match. "
+                    + "With fields, only the listed fields are selected and returned, without an ETag",
             summary = "Fetch a Customer",
             responses = {
                     @ApiResponse(
@@ -64,6 +296,11 @@ public class CustomerController {
                                     )
                             }
                     ),
+                    @ApiResponse(
+                            description = "Customer unchanged since the ETag given in If-None-Match",
+                            responseCode = "304",
+                            content = @Content
+                    ),
                     @ApiResponse(
                             description = "Unauthorized / Invalid Token",
                             responseCode = "403",
@@ -77,8 +314,110 @@ public class CustomerController {
             }
     )
     @GetMapping("{customerId}")
-    public ResponseEntity<CustomerDTO> getSingleCustomer(@PathVariable("customerId") Integer id) {
-        return ResponseEntity.ok(customerService.getSingleCustomer(id));
+    public ResponseEntity<?> getSingleCustomer(
+            @PathVariable("customerId") Integer id,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest
+    ) {
+        // a partial representation is neither tagged nor cached, it is read straight from its columns
+        if (fields != null) {
+            return ResponseEntity.ok(customerService.getSingleCustomer(id, CustomerFields.parse(fields)));
+        }
+
+        // a customer with buffered updates differs from its stored version, so it is served without a tag
+        if (customerService.hasBufferedUpdate(id)) {
+            return ResponseEntity.ok(customerService.getSingleCustomer(id));
+        }
+
+        // revalidation only looks up the version of the customer, it does not load or map it
+        if (ifNoneMatch != null) {
+            String eTag = customerService.getCustomerETag(id);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
+        // JSON bodies are written as they were serialized into the response cache
+        if (customerResponseCache.isEnabled() && prefersJson(accept)) {
+            CustomerResponseCache.CachedCustomer cached =
+                    customerResponseCache.getOrLoad(id, customerService::getSingleCustomer);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(CustomerETags.of(id, cached.version()))
+                    .body(cached.json());
+        }
+
+        CustomerDTO customer = customerService.getSingleCustomer(id);
+        return ResponseEntity.ok()
+                .eTag(CustomerETags.of(customer))
+                .body(customer);
+    }
+
+    private static boolean prefersJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+                .max(Comparator.comparingDouble(MediaType::getQualityValue))
+                .map(preferred -> preferred.includes(MediaType.APPLICATION_JSON))
+                .orElse(true);
+    }
+
+    @Operation(
+            description = "Fetches up to 500 Customers by id with a single query. "
+                    + "Results come in the order of the requested ids, ids matching no Customer being marked as not found",
+            summary = "Fetch several Customers",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = {
+                                    @Content(
+                                            mediaType = "application/json",
+                                            schema = @Schema(implementation = CustomerBatchResponse.class)
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @PostMapping("batch-get")
+    public ResponseEntity<CustomerBatchResponse> getCustomers(@RequestBody CustomerIdsRequest request) {
+        return ResponseEntity.ok(customerService.getCustomers(request.ids()));
+    }
+
+
+    @Operation(
+            description = "Deletes up to 500 Customers by id with a single statement. "
+                    + "Results come in the order of the requested ids, ids matching no Customer being marked as not found",
+            summary = "Delete several Customers",
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = {
+                                    @Content(
+                                            mediaType = "application/json",
+                                            schema = @Schema(implementation = CustomerBatchResponse.class)
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    )
+            }
+    )
+    @PostMapping("batch-delete")
+    public ResponseEntity<CustomerBatchResponse> deleteCustomers(@RequestBody CustomerIdsRequest request) {
+        return ResponseEntity.ok(customerService.deleteCustomers(request.ids()));
     }
 
     @DeleteMapping("{customerId}")
@@ -88,13 +427,53 @@ public class CustomerController {
     }
     
 
+    @Operation(
+            description = "Changes the given fields of a Customer, only if it is still at the version "
+                    + "of the ETag given in If-Match when one is given",
+            summary = "Partially update a Customer",
+            responses = {
+                    @ApiResponse(
+                            description = "Customer updated, the response carries its new ETag",
+                            responseCode = "204",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized / Invalid Token",
+                            responseCode = "403",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            description = "Customer modified since the ETag given in If-Match, "
+                                    + "the response carries its current version and ETag",
+                            responseCode = "409",
+                            content = @Content
+                    )
+            }
+    )
+    @PatchMapping("{customerId}")
+    public ResponseEntity<Void> patchCustomer(
+            @PathVariable("customerId") Integer id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody NewCustomerRequest request
+    ) {
+        Integer expectedVersion = ifMatch == null ? null : CustomerETags.expectedVersion(id, ifMatch);
+        Integer version = customerService.patchCustomer(id, request, expectedVersion);
+        return ResponseEntity
+                .noContent()
+                .eTag(CustomerETags.of(id, version))
+                .build();
+    }
+
     @PutMapping("{customerId}")
     public ResponseEntity<?> updateCustomer(
             @PathVariable("customerId") Integer id,
             @RequestBody NewCustomerRequest request
     ) {
-        customerService.updateCustomer(id, request);
-        return ResponseEntity.ok().build();
+        boolean written = customerService.updateCustomer(id, request);
+        // in write-behind mode the update is acknowledged once buffered, and written shortly after
+        return written
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.accepted().build();
     }
 
     @PostMapping
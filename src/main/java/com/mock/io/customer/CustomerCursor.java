@@ -0,0 +1,56 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last customer of a page, handed to clients as an opaque token.
+ * The token records the sort it was issued for so it cannot be replayed against another ordering.
+ */
+public record CustomerCursor(
+        CustomerSort sort,
+        LocalDateTime createdDate,
+        Integer id
+) {
+    private static final String SEPARATOR = "|";
+
+    public static CustomerCursor after(CustomerSort sort, CustomerDTO customer) {
+        return new CustomerCursor(sort, customer.createDate(), customer.id());
+    }
+
+    public String encode() {
+        String value = sort == CustomerSort.CREATED_DATE
+                ? sort + SEPARATOR + createdDate + SEPARATOR + id
+                : sort + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param token the opaque cursor
+     * @param sort the sort of the requested page
+     * @return the decoded cursor
+     * @throws InvalidRequestException if the token is malformed or was issued for another sort
+     */
+    public static CustomerCursor decode(String token, CustomerSort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\|");
+
+            if (sort == CustomerSort.ID && parts.length == 2 && sort.name().equals(parts[0])) {
+                return new CustomerCursor(sort, null, Integer.valueOf(parts[1]));
+            }
+            if (sort == CustomerSort.CREATED_DATE && parts.length == 3 && sort.name().equals(parts[0])) {
+                return new CustomerCursor(sort, LocalDateTime.parse(parts[1]), Integer.valueOf(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // reported below
+        }
+        throw new InvalidRequestException("Cursor [%s] is not valid", token);
+    }
+}
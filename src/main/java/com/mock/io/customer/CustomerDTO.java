@@ -10,7 +10,8 @@ public record CustomerDTO(
         LocalDateTime createDate,
         LocalDateTime lastModified,
         Integer createdBy,
-        Integer lastModifiedBy
+        Integer lastModifiedBy,
+        Integer version
 ) {}
 
 
@@ -27,7 +27,8 @@ public class CustomerDTOMapper implements Function<Customer, CustomerDTO> {
                 customer.getCreatedDate(),
                 customer.getLastModifiedDate(),
                 customer.getCreatedBy(),
-                customer.getLastModifiedBy()
+                customer.getLastModifiedBy(),
+                customer.getVersion()
         );
     }
 }
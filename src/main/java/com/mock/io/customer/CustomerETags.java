@@ -0,0 +1,73 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong entity tags for customer resources.
+ * A customer's tag is derived from its id and its version, so it can be computed from a lightweight lookup
+ * without loading the customer, and sent back in {@code If-Match} to update it optimistically.
+ * A page's tag is a digest of the tags of its customers and of its next cursor.
+ */
+final class CustomerETags {
+    private static final Pattern CUSTOMER_TAG = Pattern.compile("\"(\\d+)-v(\\d+)\"");
+
+    private CustomerETags() {
+    }
+
+    static String of(Integer id, Integer version) {
+        return "\"%d-v%d\"".formatted(id, version);
+    }
+
+    static String of(CustomerDTO customer) {
+        return of(customer.id(), customer.version());
+    }
+
+    static String of(CustomerPage page) {
+        MessageDigest digest = sha256();
+        for (CustomerDTO customer : page.items()) {
+            digest.update(of(customer).getBytes(StandardCharsets.UTF_8));
+        }
+        if (page.nextCursor() != null) {
+            digest.update(page.nextCursor().getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] hash = digest.digest();
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+    }
+
+    /**
+     * Reads the version a client expects a customer to be at from an {@code If-Match} header.
+     *
+     * @param id the id of the customer the header was sent for
+     * @param ifMatch the header value
+     * @return the expected version, or null for {@code *}
+     * @throws InvalidRequestException if the header is not a tag of that customer
+     */
+    static Integer expectedVersion(Integer id, String ifMatch) {
+        String value = ifMatch.strip();
+        if (value.equals("*")) {
+            return null;
+        }
+
+        Matcher matcher = CUSTOMER_TAG.matcher(value);
+        if (!matcher.matches() || !matcher.group(1).equals(String.valueOf(id))) {
+            throw new InvalidRequestException("If-Match [%s] is not an ETag of customer [%s]", ifMatch, id);
+        }
+        return Integer.valueOf(matcher.group(2));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
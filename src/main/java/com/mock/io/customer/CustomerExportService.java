@@ -0,0 +1,127 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Service
+@RequiredArgsConstructor
+public class CustomerExportService {
+    static final int CLEAR_INTERVAL = 1_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,name,email,age,createDate,lastModified,createdBy,lastModifiedBy";
+
+    private final CustomerRepository customerRepository;
+    private final CustomerDTOMapper customerDTOMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Streams every customer to the given output, one row at a time.
+     * Rows are read through a forward-only cursor and written as soon as they are mapped,
+     * and the persistence context is cleared every {@value #CLEAR_INTERVAL} rows,
+     * so memory use does not grow with the size of the table.
+     *
+     * @param format the format of the export
+     * @param outputStream the stream the export is written to, left open when done
+     * @throws IOException if writing to the output fails
+     */
+    @Transactional(readOnly = true)
+    public void exportCustomers(CustomerDataFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Customer> customers = customerRepository.streamAllByOrderByIdAsc()) {
+            switch (format) {
+                case NDJSON -> writeNdjson(customers.iterator(), outputStream);
+                case CSV -> writeCsv(customers.iterator(), outputStream);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<Customer> customers, OutputStream outputStream) throws IOException {
+        SequenceWriter sequenceWriter = objectMapper
+                .writerFor(CustomerDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(outputStream);
+
+        long count = 0;
+        while (customers.hasNext()) {
+            sequenceWriter.write(customerDTOMapper.apply(customers.next()));
+            count = clearPeriodically(count);
+        }
+        sequenceWriter.close();
+
+        if (count > 0) {
+            outputStream.write('\n');
+        }
+        outputStream.flush();
+    }
+
+    private void writeCsv(Iterator<Customer> customers, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (customers.hasNext()) {
+            CustomerDTO customer = customerDTOMapper.apply(customers.next());
+            writeCsvField(writer, customer.id());
+            writer.write(',');
+            writeCsvField(writer, customer.name());
+            writer.write(',');
+            writeCsvField(writer, customer.email());
+            writer.write(',');
+            writeCsvField(writer, customer.age());
+            writer.write(',');
+            writeCsvField(writer, customer.createDate());
+            writer.write(',');
+            writeCsvField(writer, customer.lastModified());
+            writer.write(',');
+            writeCsvField(writer, customer.createdBy());
+            writer.write(',');
+            writeCsvField(writer, customer.lastModifiedBy());
+            writer.write('\n');
+            count = clearPeriodically(count);
+        }
+        writer.flush();
+    }
+
+    private long clearPeriodically(long count) {
+        long written = count + 1;
+        if (written % CLEAR_INTERVAL == 0) {
+            entityManager.clear();
+        }
+        return written;
+    }
+
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,42 @@
+package com.mock.io.customer;
+
+import java.util.function.Function;
+
+/**
+ * The fields of {@link CustomerDTO} clients may ask for, with the column each one is read from.
+ * This is the allow-list of the {@code fields} parameter: columns that are not listed, such as the password,
+ * can never be selected through it.
+ */
+public enum CustomerField {
+    ID("id", "id", CustomerDTO::id),
+    NAME("name", "name", CustomerDTO::name),
+    EMAIL("email", "email", CustomerDTO::email),
+    AGE("age", "age", CustomerDTO::age),
+    CREATE_DATE("createDate", "created_date", CustomerDTO::createDate),
+    LAST_MODIFIED("lastModified", "last_modified_date", CustomerDTO::lastModified),
+    CREATED_BY("createdBy", "created_by", CustomerDTO::createdBy),
+    LAST_MODIFIED_BY("lastModifiedBy", "last_modified_by", CustomerDTO::lastModifiedBy),
+    VERSION("version", "version", CustomerDTO::version);
+
+    private final String jsonName;
+    private final String column;
+    private final Function<CustomerDTO, Object> accessor;
+
+    CustomerField(String jsonName, String column, Function<CustomerDTO, Object> accessor) {
+        this.jsonName = jsonName;
+        this.column = column;
+        this.accessor = accessor;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    String column() {
+        return column;
+    }
+
+    Object valueOf(CustomerDTO customer) {
+        return accessor.apply(customer);
+    }
+}
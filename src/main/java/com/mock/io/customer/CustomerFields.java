@@ -0,0 +1,109 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A sparse fieldset of customers, parsed from the {@code fields} parameter of the read endpoints.
+ * It shapes both ends of a read: the select list, so that unrequested columns are not read or mapped,
+ * and the serialized customers, which only carry the requested fields.
+ * Fields are always listed in declaration order, so every fieldset yields a single statement text,
+ * whatever the order the client listed them in.
+ */
+public final class CustomerFields {
+    private static final Map<String, CustomerField> BY_JSON_NAME = Arrays.stream(CustomerField.values())
+            .collect(Collectors.toUnmodifiableMap(CustomerField::jsonName, Function.identity()));
+    private static final String ALLOWED = Arrays.stream(CustomerField.values())
+            .map(CustomerField::jsonName)
+            .collect(Collectors.joining(", "));
+
+    private final Set<CustomerField> fields;
+
+    private CustomerFields(Set<CustomerField> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Parses a comma-separated list of field names.
+     *
+     * @param fields the field names, as serialized in {@link CustomerDTO}
+     * @return the fieldset
+     * @throws InvalidRequestException if the list is empty or names a field that is not allowed
+     */
+    public static CustomerFields parse(String fields) {
+        EnumSet<CustomerField> parsed = EnumSet.noneOf(CustomerField.class);
+        for (String name : fields.split(",", -1)) {
+            CustomerField field = BY_JSON_NAME.get(name.strip());
+            if (field == null) {
+                throw new InvalidRequestException("Field [%s] is not one of %s", name.strip(), ALLOWED);
+            }
+            parsed.add(field);
+        }
+        return new CustomerFields(parsed);
+    }
+
+    public Set<CustomerField> fields() {
+        return fields;
+    }
+
+    /**
+     * Returns the columns of the requested fields and of the given ones, which the query needs for itself,
+     * such as the keys of a cursor.
+     */
+    String selectList(CustomerField... required) {
+        EnumSet<CustomerField> selected = EnumSet.copyOf(fields);
+        selected.addAll(Arrays.asList(required));
+        return selected.stream()
+                .map(CustomerField::column)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Maps rows selected with {@link #selectList} into customers holding only the selected fields,
+     * the others being null.
+     */
+    RowMapper<CustomerDTO> rowMapper(CustomerField... required) {
+        EnumSet<CustomerField> selected = EnumSet.copyOf(fields);
+        selected.addAll(Arrays.asList(required));
+        return (rs, rowNum) -> new CustomerDTO(
+                selected.contains(CustomerField.ID) ? (Integer) rs.getObject("id") : null,
+                selected.contains(CustomerField.NAME) ? rs.getString("name") : null,
+                selected.contains(CustomerField.EMAIL) ? rs.getString("email") : null,
+                selected.contains(CustomerField.AGE) ? (Integer) rs.getObject("age") : null,
+                selected.contains(CustomerField.CREATE_DATE) ? toLocalDateTime(rs.getTimestamp("created_date")) : null,
+                selected.contains(CustomerField.LAST_MODIFIED)
+                        ? toLocalDateTime(rs.getTimestamp("last_modified_date"))
+                        : null,
+                selected.contains(CustomerField.CREATED_BY) ? (Integer) rs.getObject("created_by") : null,
+                selected.contains(CustomerField.LAST_MODIFIED_BY) ? (Integer) rs.getObject("last_modified_by") : null,
+                selected.contains(CustomerField.VERSION) ? (Integer) rs.getObject("version") : null
+        );
+    }
+
+    /**
+     * Returns the requested fields of a customer, keyed by their serialized name, in declaration order.
+     * Null fields are kept, as they are when the whole customer is serialized.
+     */
+    Map<String, Object> project(CustomerDTO customer) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (CustomerField field : fields) {
+            projected.put(field.jsonName(), field.valueOf(customer));
+        }
+        return projected;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,9 @@
+package com.mock.io.customer;
+
+import java.util.List;
+import java.util.Map;
+
+public record CustomerFieldsPage(
+        List<Map<String, Object>> items,
+        String nextCursor
+) {}
@@ -0,0 +1,7 @@
+package com.mock.io.customer;
+
+import java.util.List;
+
+public record CustomerIdsRequest(
+        List<Integer> ids
+) {}
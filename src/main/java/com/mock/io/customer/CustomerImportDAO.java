@@ -0,0 +1,139 @@
+package com.mock.io.customer;
+
+import com.mock.io.persistence.SecondLevelCacheEvictor;
+import com.mock.io.persistence.SequenceAllocator;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Repository
+@RequiredArgsConstructor
+public class CustomerImportDAO {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String CREATE_STAGING_TABLE = """
+            create temp table if not exists customer_import (
+                id integer,
+                line bigint,
+                name varchar(255),
+                email varchar(255),
+                age integer,
+                password varchar(255)
+            ) on commit delete rows
+            """;
+    private static final String COPY_STAGING_TABLE = """
+            copy customer_import (id, line, name, email, age, password) from stdin (format csv)
+            """;
+    private static final String MERGE_STAGING_TABLE = """
+            with inserted as (
+                insert into customer (id, name, email, age, password, created_date, created_by)
+                select id, name, email, age, password, ?, ?
+                from customer_import
+                order by line
+                on conflict (email) do nothing
+                returning id
+            )
+            select staged.line
+            from customer_import staged
+            where not exists (select 1 from inserted where inserted.id = staged.id)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceAllocator sequenceAllocator;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final CustomerStatistics customerStatistics;
+
+    /**
+     * Loads the customers into a session-local staging table with {@code COPY}
+     * and merges them into {@code customer} with a single statement.
+     * Rows whose email is already taken are skipped by the {@code on conflict} clause.
+     * Cached query results over customers are invalidated, since these inserts bypass Hibernate,
+     * and the inserted customers are recorded in {@link CustomerStatistics}.
+     *
+     * @param customers the validated customers to insert, with distinct emails
+     * @param createdBy the id of the user running the import
+     * @param createdDate the creation date written on every inserted row
+     * @return the lines of the customers that were skipped because their email is already taken
+     */
+    @Transactional
+    public Set<Long> importCustomers(List<StagedCustomer> customers, Integer createdBy, LocalDateTime createdDate) {
+        if (customers.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Integer> ids = sequenceAllocator.allocate("customer_id_sequence", customers.size());
+
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new PGCopyOutputStream(pgConnection, COPY_STAGING_TABLE), UTF_8),
+                    COPY_BUFFER_SIZE
+            )) {
+                for (int i = 0; i < customers.size(); i++) {
+                    writeCopyRow(writer, ids.get(i), customers.get(i));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+
+        List<Long> rejected = jdbcTemplate.queryForList(
+                MERGE_STAGING_TABLE,
+                Long.class,
+                Timestamp.valueOf(createdDate),
+                createdBy
+        );
+        secondLevelCacheEvictor.invalidateAfterCommit("customer");
+
+        Set<Long> rejectedLines = new HashSet<>(rejected);
+        CustomerStatistics.Changes changes = new CustomerStatistics.Changes();
+        for (StagedCustomer customer : customers) {
+            if (!rejectedLines.contains(customer.line())) {
+                changes.created(customer.request().age(), createdDate.toLocalDate());
+            }
+        }
+        customerStatistics.record(changes);
+        return rejectedLines;
+    }
+
+    private static void writeCopyRow(Writer writer, Integer id, StagedCustomer customer) throws IOException {
+        NewCustomerRequest request = customer.request();
+        writer.write(id.toString());
+        writer.write(',');
+        writer.write(Long.toString(customer.line()));
+        writer.write(',');
+        writeQuoted(writer, request.name());
+        writer.write(',');
+        writeQuoted(writer, request.email());
+        writer.write(',');
+        writer.write(request.age().toString());
+        writer.write(',');
+        writeQuoted(writer, request.password());
+        writer.write('\n');
+    }
+
+    private static void writeQuoted(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.indexOf('"') < 0 ? value : value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
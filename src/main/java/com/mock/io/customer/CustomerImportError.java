@@ -0,0 +1,9 @@
+package com.mock.io.customer;
+
+import java.util.Set;
+
+public record CustomerImportError(
+        long line,
+        String email,
+        Set<String> errors
+) {}
@@ -0,0 +1,9 @@
+package com.mock.io.customer;
+
+import java.util.List;
+
+public record CustomerImportResponse(
+        long imported,
+        long failed,
+        List<CustomerImportError> errors
+) {}
@@ -0,0 +1,306 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.io.exceptions.ObjectNotValidException;
+import com.mock.io.exceptions.UnauthenticatedException;
+import com.mock.io.validators.ObjectsValidator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Service
+@RequiredArgsConstructor
+public class CustomerImportService {
+    private static final List<String> CSV_COLUMNS = List.of("name", "email", "age", "password");
+
+    @Value("${application.customer-import.chunk-size:5000}")
+    private int chunkSize;
+    @Value("${application.customer-import.validation-threads:4}")
+    private int validationThreads;
+
+    private final CustomerImportDAO customerImportDAO;
+    private final ObjectsValidator<NewCustomerRequest> validator;
+    private final ObjectMapper objectMapper;
+    private final AuditorAware<Integer> auditorAware;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private ExecutorService validationExecutor;
+
+    @PostConstruct
+    void startValidationExecutor() {
+        validationExecutor = Executors.newFixedThreadPool(validationThreads);
+    }
+
+    @PreDestroy
+    void stopValidationExecutor() {
+        validationExecutor.shutdown();
+    }
+
+    /**
+     * Imports the customers read from the given input, one per line.
+     * Lines are read in chunks, each chunk is parsed and validated in parallel on a bounded pool,
+     * and its valid rows are loaded with {@code COPY} and merged into the customer table in their own transaction,
+     * so a failure only rolls back the chunk being loaded.
+     * Quoted CSV fields cannot span several lines.
+     *
+     * @param format the format of the input, CSV inputs start with a header naming the name, email, age and password columns
+     * @param inputStream the input to read the customers from
+     * @return the number of imported and rejected rows, with the errors of every rejected line
+     * @throws ObjectNotValidException if the CSV header is missing a column
+     * @throws UnauthenticatedException if no user is authenticated
+     * @throws IOException if reading the input fails
+     */
+    public CustomerImportResponse importCustomers(CustomerDataFormat format, InputStream inputStream) throws IOException {
+        Integer createdBy = auditorAware.getCurrentAuditor()
+                .orElseThrow(() -> new UnauthenticatedException("Customers can only be imported by an authenticated user"));
+        LocalDateTime createdDate = LocalDateTime.now();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8));
+        long lineNumber = 0;
+        Map<String, Integer> csvColumns = null;
+
+        if (format == CustomerDataFormat.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            csvColumns = readCsvHeader(header);
+        }
+
+        ImportProgress progress = new ImportProgress(createdBy, createdDate, csvColumns);
+        List<RawLine> chunk = new ArrayList<>(chunkSize);
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new RawLine(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, progress);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress);
+        }
+
+        return new CustomerImportResponse(progress.imported, progress.errors.size(), progress.errors);
+    }
+
+    private void importChunk(List<RawLine> chunk, ImportProgress progress) {
+        NewCustomerRequest[] requests = new NewCustomerRequest[chunk.size()];
+        CustomerImportError[] errors = new CustomerImportError[chunk.size()];
+        validateInParallel(chunk, progress.csvColumns, requests, errors);
+
+        List<StagedCustomer> staged = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            String email = requests[i].email();
+            if (!progress.emails.add(email)) {
+                errors[i] = new CustomerImportError(chunk.get(i).number(), email,
+                        Set.of("Email [%s] appears more than once in the import".formatted(email)));
+                continue;
+            }
+            staged.add(new StagedCustomer(chunk.get(i).number(), requests[i]));
+        }
+
+        Set<Long> rejected = customerImportDAO.importCustomers(staged, progress.createdBy, progress.createdDate);
+        progress.imported += staged.size() - rejected.size();
+        if (staged.size() > rejected.size()) {
+            eventPublisher.publishEvent(new CustomerChangedEvent(null));
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            long number = chunk.get(i).number();
+            if (errors[i] == null && rejected.contains(number)) {
+                String email = requests[i].email();
+                errors[i] = new CustomerImportError(number, email, Set.of("Email [%s] is already taken".formatted(email)));
+            }
+            if (errors[i] != null) {
+                progress.errors.add(errors[i]);
+            }
+        }
+    }
+
+    private void validateInParallel(
+            List<RawLine> chunk,
+            Map<String, Integer> csvColumns,
+            NewCustomerRequest[] requests,
+            CustomerImportError[] errors
+    ) {
+        int sliceSize = Math.max(1, (chunk.size() + validationThreads - 1) / validationThreads);
+        List<CompletableFuture<Void>> slices = new ArrayList<>();
+
+        for (int start = 0; start < chunk.size(); start += sliceSize) {
+            int from = start;
+            int to = Math.min(chunk.size(), start + sliceSize);
+            slices.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    parseAndValidate(chunk.get(i), csvColumns, requests, errors, i);
+                }
+            }, validationExecutor));
+        }
+
+        slices.forEach(CompletableFuture::join);
+    }
+
+    private void parseAndValidate(
+            RawLine line,
+            Map<String, Integer> csvColumns,
+            NewCustomerRequest[] requests,
+            CustomerImportError[] errors,
+            int index
+    ) {
+        NewCustomerRequest request;
+        try {
+            request = csvColumns == null
+                    ? objectMapper.readValue(line.text(), NewCustomerRequest.class)
+                    : parseCsvRequest(line.text(), csvColumns);
+        } catch (JsonProcessingException e) {
+            errors[index] = new CustomerImportError(line.number(), null, Set.of("The line is not valid JSON"));
+            return;
+        } catch (IllegalArgumentException e) {
+            errors[index] = new CustomerImportError(line.number(), null, Set.of(e.getMessage()));
+            return;
+        }
+
+        if (request == null) {
+            errors[index] = new CustomerImportError(line.number(), null, Set.of("The customer should not be null"));
+            return;
+        }
+
+        try {
+            validator.validate(request);
+            requests[index] = request;
+        } catch (ObjectNotValidException e) {
+            errors[index] = new CustomerImportError(line.number(), request.email(), e.getErrorMessages());
+        }
+    }
+
+    private static Map<String, Integer> readCsvHeader(String header) {
+        if (header == null) {
+            throw new ObjectNotValidException(Set.of("The CSV header is missing"));
+        }
+
+        List<String> names = parseCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(), i);
+        }
+
+        Set<String> missing = new HashSet<>();
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                missing.add("The CSV header should contain a [%s] column".formatted(column));
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new ObjectNotValidException(missing);
+        }
+        return columns;
+    }
+
+    private static NewCustomerRequest parseCsvRequest(String line, Map<String, Integer> columns) {
+        List<String> fields = parseCsvLine(line);
+        String age = field(fields, columns, "age");
+        Integer parsedAge = null;
+
+        if (age != null && !age.isBlank()) {
+            try {
+                parsedAge = Integer.valueOf(age.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Age should be a number");
+            }
+        }
+
+        return new NewCustomerRequest(
+                field(fields, columns, "name"),
+                field(fields, columns, "email"),
+                parsedAge,
+                field(fields, columns, "password")
+        );
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Splits a CSV line into its fields, unquoting quoted fields and unescaping doubled quotes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("The line is not valid CSV");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record RawLine(long number, String text) {}
+
+    private static class ImportProgress {
+        private final Integer createdBy;
+        private final LocalDateTime createdDate;
+        private final Map<String, Integer> csvColumns;
+        private final Set<String> emails = new HashSet<>();
+        private final List<CustomerImportError> errors = new ArrayList<>();
+        private long imported;
+
+        private ImportProgress(Integer createdBy, LocalDateTime createdDate, Map<String, Integer> csvColumns) {
+            this.createdBy = createdBy;
+            this.createdDate = createdDate;
+            this.csvColumns = csvColumns;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.mock.io.customer;
+
+import java.util.List;
+
+public record CustomerPage(
+        List<CustomerDTO> items,
+        String nextCursor
+) {}
@@ -1,9 +1,84 @@
 package com.mock.io.customer;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
     Optional<Customer> findByEmail(String email);
-}
\ No newline at end of file
+
+    boolean existsByEmailAndIdNot(String email, Integer id);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Customer> streamAllByOrderByIdAsc();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            select new com.mock.io.customer.CustomerDTO(
+                c.id, c.name, c.email, c.age, c.createdDate, c.lastModifiedDate, c.createdBy, c.lastModifiedBy, c.version
+            )
+            from Customer c
+            where c.id = :id
+            """)
+    Optional<CustomerDTO> findDTOById(@Param("id") Integer id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select c.version from Customer c where c.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    @Query("""
+            select new com.mock.io.customer.CustomerDTO(
+                c.id, c.name, c.email, c.age, c.createdDate, c.lastModifiedDate, c.createdBy, c.lastModifiedBy, c.version
+            )
+            from Customer c
+            order by c.id
+            """)
+    List<CustomerDTO> findFirstPageById(Pageable pageable);
+
+    @Query("""
+            select new com.mock.io.customer.CustomerDTO(
+                c.id, c.name, c.email, c.age, c.createdDate, c.lastModifiedDate, c.createdBy, c.lastModifiedBy, c.version
+            )
+            from Customer c
+            where c.id > :id
+            order by c.id
+            """)
+    List<CustomerDTO> findPageAfterId(@Param("id") Integer id, Pageable pageable);
+
+    @Query("""
+            select new com.mock.io.customer.CustomerDTO(
+                c.id, c.name, c.email, c.age, c.createdDate, c.lastModifiedDate, c.createdBy, c.lastModifiedBy, c.version
+            )
+            from Customer c
+            order by c.createdDate, c.id
+            """)
+    List<CustomerDTO> findFirstPageByCreatedDate(Pageable pageable);
+
+    @Query("""
+            select new com.mock.io.customer.CustomerDTO(
+                c.id, c.name, c.email, c.age, c.createdDate, c.lastModifiedDate, c.createdBy, c.lastModifiedBy, c.version
+            )
+            from Customer c
+            where c.createdDate > :createdDate
+               or (c.createdDate = :createdDate and c.id > :id)
+            order by c.createdDate, c.id
+            """)
+    List<CustomerDTO> findPageAfterCreatedDate(
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Pageable pageable
+    );
+}
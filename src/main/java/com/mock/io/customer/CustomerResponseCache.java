@@ -0,0 +1,231 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache of the JSON bodies of single customers, serialized once and kept off-heap, so that a large cache
+ * adds nothing for the garbage collector to trace or copy.
+ * Bodies are appended to a direct buffer used as a ring: each record is an 8-byte header holding the customer id
+ * and the body length, followed by the body. When the writer comes back to the start of the buffer it evicts
+ * the oldest records it is about to overwrite, so the cache is bounded by its size in bytes, first in first out.
+ * Only the index from customer id to record position lives on the heap.
+ * Readers take no lock: they copy a body and then check that the writer has not reached it in the meantime.
+ * Every hit therefore copies the body into a new {@code byte[]} on the heap, so hits still allocate as much as
+ * the body they return; what the cache spares the collector is tracing and copying the cached bodies themselves,
+ * which live long, not the short-lived copies handed to each request.
+ * Like {@link CustomerSearchCache}, bodies are tagged with the generation they were loaded in, and any committed
+ * customer write starts a new generation, so a body loaded before a write is never cached after it.
+ */
+@Component
+public class CustomerResponseCache {
+
+    private static final int HEADER = 8;
+    private static final int PADDING = -1;
+
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private final ByteBuffer slab;
+    private final int capacity;
+    private final int maxBodySize;
+    private final Map<Integer, Entry> index = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    // absolute positions, growing forever, the physical position being the absolute one modulo the capacity
+    private volatile long reserved;
+    private long written;
+    private long evicted;
+
+    public CustomerResponseCache(
+            @Value("${application.customer-response-cache.enabled:true}") boolean enabled,
+            @Value("${application.customer-response-cache.capacity:32MB}") DataSize capacity,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        if (capacity.toBytes() < 1024 || capacity.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The capacity of the customer response cache should be between 1KB and 2GB");
+        }
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+        this.capacity = (int) capacity.toBytes();
+        this.maxBodySize = this.capacity / 8 - HEADER;
+        this.slab = enabled ? ByteBuffer.allocateDirect(this.capacity) : null;
+        this.hits = Counter.builder("customer.response.cache")
+                .description("Single customer reads, by whether their body was served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("customer.response.cache")
+                .description("Single customer reads, by whether their body was served from the cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("customer.response.cache.entries", index, Map::size)
+                .description("Customers whose body is cached")
+                .register(meterRegistry);
+        Gauge.builder("customer.response.cache.memory", this, cache -> cache.enabled ? cache.capacity : 0)
+                .description("Off-heap memory reserved for cached bodies")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the current generation, to be read before loading the customer whose body will be cached.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the JSON body of a customer, from the cache or by loading and serializing the customer,
+     * in which case the body is cached for the next reads.
+     *
+     * @param id the id of the customer
+     * @param loader loads the customer on a miss
+     * @return the JSON body of the customer along with its version
+     */
+    public CachedCustomer getOrLoad(Integer id, Function<Integer, CustomerDTO> loader) {
+        Optional<CachedCustomer> cached = get(id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        long loadGeneration = generation();
+        CustomerDTO customer = loader.apply(id);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(customer);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Customer [%s] could not be serialized".formatted(id), e);
+        }
+        put(id, customer.version(), json, loadGeneration);
+        return new CachedCustomer(json, customer.version());
+    }
+
+    /**
+     * Returns the cached body of a customer, copied out of the off-heap buffer into a new array on every hit.
+     */
+    public Optional<CachedCustomer> get(Integer id) {
+        Entry entry = enabled ? index.get(id) : null;
+        if (entry == null || overwritten(entry)) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        byte[] json = new byte[entry.length()];
+        slab.get(physical(entry.position() + HEADER), json);
+
+        // the copy may have raced with the writer, in which case the body is thrown away
+        VarHandle.loadLoadFence();
+        if (overwritten(entry)) {
+            index.remove(id, entry);
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(new CachedCustomer(json, entry.version()));
+    }
+
+    /**
+     * Caches the body of a customer, unless a write was committed since the given generation was read,
+     * in which case the body may already be stale, or unless the body is too large for the cache.
+     */
+    public void put(Integer id, Integer version, byte[] json, long loadGeneration) {
+        if (!enabled || json.length > maxBodySize || loadGeneration != generation.get()) {
+            return;
+        }
+
+        Entry entry;
+        synchronized (this) {
+            long position = written;
+            int tail = capacity - physical(position);
+            if (tail < HEADER + json.length) {
+                // records never wrap around, the end of the buffer is skipped
+                position += tail;
+            }
+            long end = position + HEADER + json.length;
+            evictUpTo(end - capacity);
+            reserved = end;
+            VarHandle.storeStoreFence();
+
+            if (position != written && tail >= HEADER) {
+                slab.putInt(physical(written), PADDING);
+                slab.putInt(physical(written) + 4, PADDING);
+            }
+
+            int physical = physical(position);
+            slab.putInt(physical, id);
+            slab.putInt(physical + 4, json.length);
+            slab.put(physical + HEADER, json);
+            written = end;
+
+            entry = new Entry(position, json.length, version);
+            index.put(id, entry);
+        }
+
+        // a write committed while the body was being stored must not leave it behind
+        if (loadGeneration != generation.get()) {
+            index.remove(id, entry);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.customerId() == null) {
+            index.clear();
+        } else {
+            index.remove(event.customerId());
+        }
+    }
+
+    /**
+     * Drops from the index every record that starts before the given absolute position.
+     */
+    private void evictUpTo(long limit) {
+        while (evicted < limit && evicted < written) {
+            int physical = physical(evicted);
+            if (capacity - physical < HEADER || slab.getInt(physical + 4) == PADDING) {
+                evicted += capacity - physical;
+                continue;
+            }
+
+            int id = slab.getInt(physical);
+            long position = evicted;
+            index.computeIfPresent(id, (key, entry) -> entry.position() == position ? null : entry);
+            evicted += HEADER + slab.getInt(physical + 4);
+        }
+    }
+
+    private boolean overwritten(Entry entry) {
+        return reserved - capacity > entry.position();
+    }
+
+    private int physical(long position) {
+        return (int) (position % capacity);
+    }
+
+    private record Entry(long position, int length, Integer version) {}
+
+    public record CachedCustomer(byte[] json, Integer version) {}
+}
@@ -0,0 +1,96 @@
+package com.mock.io.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least recently used cache of criteria search results, holding the ids of the matching customers.
+ * Every entry is tagged with the generation it was computed in and any committed customer write starts
+ * a new generation, so entries never outlive a change to the data they were computed from.
+ */
+@Component
+public class CustomerSearchCache {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<SearchRequest, CachedIds> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CustomerSearchCache(
+            @Value("${application.customer-search.cache-size:1000}") int maxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchRequest, CachedIds> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("customer.search.cache")
+                .description("Criteria searches, by whether they were served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("customer.search.cache")
+                .description("Criteria searches, by whether they were served from the cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the current generation, to be read before running the search whose result will be cached.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached ids for the search, if they were computed in the current generation.
+     */
+    public Optional<List<Integer>> get(SearchRequest request) {
+        CachedIds cached;
+        synchronized (entries) {
+            cached = entries.get(request);
+        }
+
+        if (cached == null || cached.generation() != generation.get()) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(cached.ids());
+    }
+
+    /**
+     * Caches the ids found by a search, unless a write was committed since the given generation was read,
+     * in which case the ids may already be stale.
+     */
+    public void put(SearchRequest request, long searchGeneration, List<Integer> ids) {
+        if (searchGeneration != generation.get()) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(request, new CachedIds(searchGeneration, List.copyOf(ids)));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private record CachedIds(long generation, List<Integer> ids) {}
+}
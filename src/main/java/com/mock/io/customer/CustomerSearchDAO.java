@@ -2,82 +2,301 @@ package com.mock.io.customer;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 @Repository
 @RequiredArgsConstructor
 public class CustomerSearchDAO {
 
     private final EntityManager entityManager;
-    public static final String FORMATTER = "\"%[%s]%\"";
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CustomerSearchIndexes searchIndexes;
+    public static final String FORMATTER = "%%%s%%";
+
+    private static final int NAME = 1;
+    private static final int EMAIL = 2;
+    private static final int AGE = 4;
+    private static final String SIMPLE_QUERY = """
+            select c from Customer c
+            where (c.name like :name or c.age = :age)
+              and c.email like :email
+            """;
+    // one query per combination of present criteria, indexed by the bits of the combination
+    private static final String[] CRITERIA_QUERIES = buildCriteriaQueries("select c", "");
+    private static final String[] CRITERIA_ID_QUERIES = buildCriteriaQueries("select c.id", " order by c.id");
+
+    static final String SEARCH_VECTOR = "to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(email, ''))";
+    static final String RANKED_SEARCH = """
+            select id, name, email, age, created_date, last_modified_date, created_by, last_modified_by, version,
+                   greatest(
+                       similarity(name, :query),
+                       similarity(email, :query),
+                       ts_rank(%1$s, plainto_tsquery('simple', :query))
+                   ) as rank
+            from customer
+            where name %% :query
+               or email %% :query
+               or name ilike :pattern
+               or email ilike :pattern
+               or %1$s @@ plainto_tsquery('simple', :query)
+            order by rank desc, id
+            limit :limit offset :offset
+            """.formatted(SEARCH_VECTOR);
+    // without pg_trgm, only tokens rank matches, and substrings match with a scan
+    static final String RANKED_SEARCH_WITHOUT_TRIGRAMS = """
+            select id, name, email, age, created_date, last_modified_date, created_by, last_modified_by, version,
+                   ts_rank(%1$s, plainto_tsquery('simple', :query)) as rank
+            from customer
+            where name ilike :pattern
+               or email ilike :pattern
+               or %1$s @@ plainto_tsquery('simple', :query)
+            order by rank desc, id
+            limit :limit offset :offset
+            """.formatted(SEARCH_VECTOR);
+    private static final String DTOS_BY_IDS = """
+            select id, name, email, age, created_date, last_modified_date, created_by, last_modified_by, version
+            from customer
+            where id = any (:ids)
+            """;
+
+    private static final RowMapper<CustomerDTO> CUSTOMER_DTO_MAPPER = (rs, rowNum) -> new CustomerDTO(
+            rs.getInt("id"),
+            rs.getString("name"),
+            rs.getString("email"),
+            (Integer) rs.getObject("age"),
+            toLocalDateTime(rs.getTimestamp("created_date")),
+            toLocalDateTime(rs.getTimestamp("last_modified_date")),
+            (Integer) rs.getObject("created_by"),
+            (Integer) rs.getObject("last_modified_by"),
+            rs.getInt("version")
+    );
 
     public List<Customer> findAllBySimpleQuery(
             String name,
             String email,
             Integer age
     ) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Customer> criteriaQuery = criteriaBuilder.createQuery(Customer.class);
-
-        // select * from customer
-        Root<Customer> root = criteriaQuery.from(Customer.class);
-        // prepare the where clause
-        Predicate namePredicate = criteriaBuilder
-                .like(root.get("name"), FORMATTER.formatted(name));
-        Predicate emailPredicate = criteriaBuilder
-                .like(root.get("email"), FORMATTER.formatted(email));
-        Predicate agePredicate = criteriaBuilder
-                .equal(root.get("age"), age);
-
-        Predicate namOrAgePredicate = criteriaBuilder.or(namePredicate, agePredicate);
-
-        criteriaQuery.where(
-                criteriaBuilder.and(namOrAgePredicate, emailPredicate)
-        );
-
-        TypedQuery<Customer> query = entityManager.createQuery(criteriaQuery);
-        return query.getResultList();
+        return entityManager.createQuery(SIMPLE_QUERY, Customer.class)
+                .setParameter("name", FORMATTER.formatted(name))
+                .setParameter("email", FORMATTER.formatted(email))
+                .setParameter("age", age)
+                .getResultList();
     }
 
+    /**
+     * Finds the customers matching any of the criteria present in the request.
+     * The query is picked among pre-built ones by the set of criteria present, and the values are bound as parameters,
+     * so every search of the same shape reuses the Hibernate query plan and the JDBC prepared statement.
+     *
+     * @param request the criteria, absent ones being null
+     * @return the matching customers, or an empty list when no criterion is present
+     */
     public List<Customer> findAllByCriteria(SearchRequest request) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Customer> criteriaQuery = criteriaBuilder.createQuery(Customer.class);
-
-        List<Predicate> predicates = new ArrayList<>();
+        return findByCriteria(CRITERIA_QUERIES, Customer.class, request);
+    }
 
-        Root<Customer> root = criteriaQuery.from(Customer.class);
+    /**
+     * Finds the ids of the customers matching any of the criteria present in the request, in id order.
+     * Queries are picked by shape as in {@link #findAllByCriteria}.
+     *
+     * @param request the criteria, absent ones being null
+     * @return the ids of the matching customers, or an empty list when no criterion is present
+     */
+    public List<Integer> findIdsByCriteria(SearchRequest request) {
+        return findByCriteria(CRITERIA_ID_QUERIES, Integer.class, request);
+    }
 
-        if(request.name() != null) {
-            Predicate namePredicate = criteriaBuilder
-                    .like(root.get("name"), FORMATTER.formatted(request.name()));
-            predicates.add(namePredicate);
+    /**
+     * Loads the customers with the given ids in a single batch, resolving first from the persistence context
+     * and the second-level cache, and only querying the database for the rest.
+     *
+     * @param ids the ids of the customers to load
+     * @return the customers that still exist, in the order of the given ids
+     */
+    public List<Customer> findAllByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
 
-        if(request.age() != null) {
-            Predicate agePredicate = criteriaBuilder
-                    .equal(root.get("age"), request.age());
-            predicates.add(agePredicate);
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Customer.class)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Projects the customers with the given ids into DTOs with a single query, whatever the number of ids,
+     * the ids being bound as one array parameter so that every batch reuses the same prepared statement.
+     *
+     * @param ids the ids of the customers to load
+     * @return the customers that exist, in no particular order
+     */
+    public List<CustomerDTO> findDTOsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
 
-        if(request.email() != null) {
-            Predicate emailPredicate = criteriaBuilder
-                    .like(root.get("email"), FORMATTER.formatted(request.email()));
-            predicates.add(emailPredicate);
+        return jdbcTemplate.query(DTOS_BY_IDS, new MapSqlParameterSource("ids", idArray(ids)), CUSTOMER_DTO_MAPPER);
+    }
+
+    /**
+     * Projects one page of customers onto a sparse fieldset, ordered by the given sort and starting after a cursor,
+     * with the same keyset conditions as {@link CustomerRepository#findPageAfterId} and
+     * {@link CustomerRepository#findPageAfterCreatedDate}.
+     * Only the columns of the requested fields are selected, along with the keys of the sort,
+     * which the next cursor is built from.
+     *
+     * @param fields the fields to select
+     * @param sort the key the customers are ordered by
+     * @param after the cursor of the previous page, or null for the first page
+     * @param limit the maximum number of customers to return
+     * @return the customers, holding the selected fields only
+     */
+    public List<CustomerDTO> findPage(CustomerFields fields, CustomerSort sort, CustomerCursor after, int limit) {
+        CustomerField[] keys = sort == CustomerSort.ID
+                ? new CustomerField[]{CustomerField.ID}
+                : new CustomerField[]{CustomerField.CREATE_DATE, CustomerField.ID};
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+
+        String keyset = "";
+        if (after != null) {
+            parameters.addValue("id", after.id());
+            if (sort == CustomerSort.ID) {
+                keyset = "where id > :id";
+            } else {
+                keyset = "where created_date > :createdDate or (created_date = :createdDate and id > :id)";
+                parameters.addValue("createdDate", Timestamp.valueOf(after.createdDate()));
+            }
         }
+        String orderBy = sort == CustomerSort.ID ? "id" : "created_date, id";
 
-        criteriaQuery.where(
-                criteriaBuilder.or(predicates.toArray(new Predicate[0]))
+        return jdbcTemplate.query(
+                "select %s from customer %s order by %s limit :limit".formatted(fields.selectList(keys), keyset, orderBy),
+                parameters,
+                fields.rowMapper(keys)
         );
+    }
+
+    /**
+     * Projects a customer onto a sparse fieldset, selecting only the columns of the requested fields.
+     *
+     * @param id the id of the customer
+     * @param fields the fields to select
+     * @return the customer holding the selected fields only, or empty if it does not exist
+     */
+    public Optional<CustomerDTO> findById(Integer id, CustomerFields fields) {
+        return jdbcTemplate.query(
+                "select %s from customer where id = :id".formatted(fields.selectList(CustomerField.ID)),
+                new MapSqlParameterSource("id", id),
+                fields.rowMapper(CustomerField.ID)
+        ).stream().findFirst();
+    }
+
+    /**
+     * Wraps customer ids into a SQL {@code integer[]} parameter, to be matched with {@code = any (...)}.
+     */
+    static SqlParameterValue idArray(Collection<Integer> ids) {
+        return new SqlParameterValue(Types.ARRAY, new AbstractSqlTypeValue() {
+            @Override
+            protected Object createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+                return connection.createArrayOf("integer", ids.toArray());
+            }
+        });
+    }
+
+    private <T> List<T> findByCriteria(String[] queries, Class<T> resultType, SearchRequest request) {
+        int shape = (request.name() != null ? NAME : 0)
+                | (request.email() != null ? EMAIL : 0)
+                | (request.age() != null ? AGE : 0);
 
-        TypedQuery<Customer> query = entityManager.createQuery(criteriaQuery);
+        if (shape == 0) {
+            return List.of();
+        }
+
+        TypedQuery<T> query = entityManager.createQuery(queries[shape], resultType);
+        if ((shape & NAME) != 0) {
+            query.setParameter("name", FORMATTER.formatted(request.name()));
+        }
+        if ((shape & EMAIL) != 0) {
+            query.setParameter("email", FORMATTER.formatted(request.email()));
+        }
+        if ((shape & AGE) != 0) {
+            query.setParameter("age", request.age());
+        }
         return query.getResultList();
     }
+
+    private static String[] buildCriteriaQueries(String select, String orderBy) {
+        String[] queries = new String[(NAME | EMAIL | AGE) + 1];
+        for (int shape = 1; shape < queries.length; shape++) {
+            List<String> predicates = new ArrayList<>();
+            if ((shape & NAME) != 0) {
+                predicates.add("c.name like :name");
+            }
+            if ((shape & AGE) != 0) {
+                predicates.add("c.age = :age");
+            }
+            if ((shape & EMAIL) != 0) {
+                predicates.add("c.email like :email");
+            }
+            queries[shape] = select + " from Customer c where " + String.join(" or ", predicates) + orderBy;
+        }
+        return queries;
+    }
+
+    /**
+     * Searches the customers whose name or email is similar to the query, contains it,
+     * or shares a token with it, best matches first.
+     * Every condition is served by one of the indexes created by {@link CustomerSearchIndexes},
+     * so the search does not scan the whole table. Without the {@code pg_trgm} extension, matches are only ranked
+     * by the tokens they share with the query, and substrings are matched by scanning the table.
+     *
+     * @param query the text to look for
+     * @param offset the number of matches to skip
+     * @param limit the maximum number of matches to return
+     * @return the matching customers, ordered by decreasing rank and then by id
+     */
+    public List<CustomerDTO> searchRanked(String query, int offset, int limit) {
+        String search = searchIndexes.trigramsAvailable() ? RANKED_SEARCH : RANKED_SEARCH_WITHOUT_TRIGRAMS;
+        return jdbcTemplate.query(search, searchParameters(query, offset, limit), CUSTOMER_DTO_MAPPER);
+    }
+
+    static MapSqlParameterSource searchParameters(String query, int offset, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("pattern", "%" + escapeLikePattern(query) + "%")
+                .addValue("offset", offset)
+                .addValue("limit", limit);
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
 }
@@ -0,0 +1,78 @@
+package com.mock.io.customer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes backing {@link CustomerSearchDAO#searchRanked}, which cannot be declared on the entity:
+ * trigram GIN indexes on the name and email for similarity and substring matching,
+ * and a GIN index on the text search vector of both for token matching.
+ * Trigrams come from the {@code pg_trgm} extension, which only a role allowed to create extensions can install,
+ * ideally when the database is provisioned. When it is missing and the application role cannot install it,
+ * the application still starts, and the search falls back to token matching and plain substring matching
+ * until the extension is installed and the application restarted.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerSearchIndexes implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean trigramsAvailable;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("""
+                create index if not exists customer_search_tsv_idx
+                on customer using gin (%s)
+                """.formatted(CustomerSearchDAO.SEARCH_VECTOR));
+
+        if (!installTrigrams()) {
+            log.warn("The pg_trgm extension is missing and could not be created, customers are searched without "
+                    + "trigrams until a privileged role runs \"create extension pg_trgm\" and the application restarts");
+            return;
+        }
+
+        jdbcTemplate.execute("""
+                create index if not exists customer_name_trgm_idx
+                on customer using gin (name gin_trgm_ops)
+                """);
+        jdbcTemplate.execute("""
+                create index if not exists customer_email_trgm_idx
+                on customer using gin (email gin_trgm_ops)
+                """);
+        trigramsAvailable = true;
+        log.info("Customer search indexes are in place");
+    }
+
+    /**
+     * Tells whether the trigram functions, operators and indexes the ranked search relies on are in place.
+     */
+    public boolean trigramsAvailable() {
+        return trigramsAvailable;
+    }
+
+    private boolean installTrigrams() {
+        Boolean installed = jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_extension where extname = 'pg_trgm')",
+                Boolean.class
+        );
+        if (Boolean.TRUE.equals(installed)) {
+            return true;
+        }
+
+        try {
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            return true;
+        } catch (DataAccessException e) {
+            log.debug("Creating the pg_trgm extension failed", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.mock.io.customer;
+
+import java.util.List;
+
+public record CustomerSearchPage(
+        List<CustomerDTO> items,
+        int page,
+        int size,
+        boolean hasNext
+) {}
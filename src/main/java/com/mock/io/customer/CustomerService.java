@@ -1,138 +1,510 @@
 package com.mock.io.customer;
 
+import com.mock.io.exceptions.ConflictException;
+import com.mock.io.exceptions.InvalidRequestException;
+import com.mock.io.exceptions.NotFoundException;
+import com.mock.io.exceptions.UnauthenticatedException;
+import com.mock.io.exceptions.VersionConflictException;
 import com.mock.io.validators.ObjectsValidator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CustomerService {
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_BATCH_SIZE = 500;
+
+    // constant failures are allocated once, domain exceptions carrying no stack trace
+    private static final InvalidRequestException INVALID_PAGE_SIZE =
+            new InvalidRequestException("Page size should be between 1 and %s", MAX_PAGE_SIZE);
+    private static final InvalidRequestException EMPTY_SEARCH_QUERY =
+            new InvalidRequestException("The search query should not be empty");
+    private static final InvalidRequestException NEGATIVE_PAGE_NUMBER =
+            new InvalidRequestException("Page number should not be negative");
+    private static final InvalidRequestException INVALID_BATCH_SIZE =
+            new InvalidRequestException("A batch should contain between 1 and %d ids", MAX_BATCH_SIZE);
+    private static final InvalidRequestException NULL_CUSTOMER_ID =
+            new InvalidRequestException("Customer ids should not be null");
+    private static final InvalidRequestException NO_CHANGES =
+            new InvalidRequestException("No changes found");
 
     private final CustomerRepository customerRepository;
+    private final CustomerWriteDAO customerWriteDAO;
+    private final CustomerWriteBehindBuffer writeBehindBuffer;
+    private final CustomerSearchDAO customerSearchDAO;
+    private final CustomerSearchCache customerSearchCache;
     private final CustomerDTOMapper customerDTOMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditorAware<Integer> auditorAware;
     private final ObjectsValidator<NewCustomerRequest> validator;
 
     public CustomerService(
             CustomerRepository customerRepository,
+            CustomerWriteDAO customerWriteDAO,
+            CustomerWriteBehindBuffer writeBehindBuffer,
+            CustomerSearchDAO customerSearchDAO,
+            CustomerSearchCache customerSearchCache,
             CustomerDTOMapper customerDTOMapper,
+            ApplicationEventPublisher eventPublisher,
+            AuditorAware<Integer> auditorAware,
             ObjectsValidator<NewCustomerRequest> validator
     ) {
         this.customerRepository = customerRepository;
+        this.customerWriteDAO = customerWriteDAO;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.customerSearchDAO = customerSearchDAO;
+        this.customerSearchCache = customerSearchCache;
         this.customerDTOMapper = customerDTOMapper;
+        this.eventPublisher = eventPublisher;
+        this.auditorAware = auditorAware;
         this.validator = validator;
     }
 
     /**
-     * Returns a list of all customers in the system.
+     * Returns one page of customers using keyset pagination.
+     * The page is fetched with a range condition on the sort key instead of an offset,
+     * so the cost of a page does not depend on how deep the client has paged.
+     * Rows are projected straight into {@link CustomerDTO} in a read-only transaction,
+     * so no entity is managed, snapshotted or flushed.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param size the number of customers per page, or null for the default page size
+     * @param sort the key the customers are ordered by
+     * @return the requested page and the cursor of the next one, which is null on the last page
+     * @throws InvalidRequestException if the cursor is malformed or the page size is out of bounds
+     */
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomersPage(String cursor, Integer size, CustomerSort sort) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw INVALID_PAGE_SIZE;
+        }
+
+        // one extra row tells whether there is a next page without a count query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        CustomerCursor after = cursor == null ? null : CustomerCursor.decode(cursor, sort);
+
+        List<CustomerDTO> customers = switch (sort) {
+            case ID -> after == null
+                    ? customerRepository.findFirstPageById(limit)
+                    : customerRepository.findPageAfterId(after.id(), limit);
+            case CREATED_DATE -> after == null
+                    ? customerRepository.findFirstPageByCreatedDate(limit)
+                    : customerRepository.findPageAfterCreatedDate(after.createdDate(), after.id(), limit);
+        };
+
+        List<CustomerDTO> items = customers.size() > pageSize
+                ? customers.subList(0, pageSize)
+                : customers;
+
+        String nextCursor = customers.size() > pageSize
+                ? CustomerCursor.after(sort, items.get(items.size() - 1)).encode()
+                : null;
+
+        return new CustomerPage(items, nextCursor);
+    }
+
+    /**
+     * Returns one page of customers holding only the requested fields, paginated as {@link #getCustomersPage}.
+     * Only the columns of the requested fields and of the sort key are selected, straight into DTOs with JDBC,
+     * and the customers are handed back as maps of the requested fields, so that nothing else is serialized.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param size the number of customers per page, or null for the default page size
+     * @param sort the key the customers are ordered by
+     * @param fields the fields to return
+     * @return the requested page and the cursor of the next one, which is null on the last page
+     * @throws InvalidRequestException if the cursor is malformed or the page size is out of bounds
+     */
+    @Transactional(readOnly = true)
+    public CustomerFieldsPage getCustomersPage(String cursor, Integer size, CustomerSort sort, CustomerFields fields) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw INVALID_PAGE_SIZE;
+        }
+
+        CustomerCursor after = cursor == null ? null : CustomerCursor.decode(cursor, sort);
+
+        // one extra row tells whether there is a next page without a count query
+        List<CustomerDTO> customers = customerSearchDAO.findPage(fields, sort, after, pageSize + 1);
+
+        List<CustomerDTO> items = customers.size() > pageSize
+                ? customers.subList(0, pageSize)
+                : customers;
+
+        String nextCursor = customers.size() > pageSize
+                ? CustomerCursor.after(sort, items.get(items.size() - 1)).encode()
+                : null;
+
+        return new CustomerFieldsPage(items.stream().map(fields::project).toList(), nextCursor);
+    }
+
+    /**
+     * Searches the customers by name and email, best matches first.
+     * Matches are found through trigram similarity, substring matching and token matching,
+     * all backed by indexes, and are paginated by offset since they are ordered by rank.
+     *
+     * @param query the text to look for
+     * @param page the zero-based page number, or null for the first page
+     * @param size the number of customers per page, or null for the default page size
+     * @return the requested page of matches, and whether there is a next one
+     * @throws InvalidRequestException if the query is blank or the page is out of bounds
+     */
+    public CustomerSearchPage searchCustomers(String query, Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+
+        if (query == null || query.isBlank()) {
+            throw EMPTY_SEARCH_QUERY;
+        }
+
+        if (pageNumber < 0) {
+            throw NEGATIVE_PAGE_NUMBER;
+        }
+
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw INVALID_PAGE_SIZE;
+        }
+
+        // one extra row tells whether there is a next page without a count query
+        List<CustomerDTO> matches = customerSearchDAO.searchRanked(
+                query.strip(),
+                Math.multiplyExact(pageNumber, pageSize),
+                pageSize + 1
+        );
+
+        boolean hasNext = matches.size() > pageSize;
+        List<CustomerDTO> items = hasNext ? matches.subList(0, pageSize) : matches;
+        return new CustomerSearchPage(items, pageNumber, pageSize, hasNext);
+    }
+
+    /**
+     * Finds the customers matching any of the criteria present in the request.
+     * The ids of the matches are cached per normalised request until the next customer write is committed,
+     * so repeating a search only loads the customers by id.
      *
-     * @return a list of all customers
+     * @param request the criteria, absent or blank ones being ignored
+     * @return the matching customers, in id order
      */
-    public List<CustomerDTO> getAllCustomers() {
-        return customerRepository
-               .findAll()
-               .stream()
-               .map(customerDTOMapper)
-               .toList();
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> searchCustomersByCriteria(SearchRequest request) {
+        SearchRequest normalised = new SearchRequest(
+                normalise(request.name()),
+                normalise(request.email()),
+                request.age()
+        );
+
+        List<Integer> ids = customerSearchCache.get(normalised).orElseGet(() -> {
+            long generation = customerSearchCache.generation();
+            List<Integer> found = customerSearchDAO.findIdsByCriteria(normalised);
+            customerSearchCache.put(normalised, generation, found);
+            return found;
+        });
+
+        return customerSearchDAO.findAllByIds(ids)
+                .stream()
+                .map(customerDTOMapper)
+                .toList();
+    }
+
+    private static String normalise(String criterion) {
+        return criterion == null || criterion.isBlank() ? null : criterion.strip();
     }
 
     /**
      * Retrieves a single customer from the system by its id.
+     * The customer is projected straight into a {@link CustomerDTO} in a read-only transaction,
+     * and the updates still buffered for it in write-behind mode are applied on top.
      *
      * @param id the unique identifier of the customer
-     * @return the requested customer as a DTO, or throws an {@link IllegalArgumentException} if the customer with the given id is not found
+     * @return the requested customer as a DTO, or throws a {@link NotFoundException} if the customer with the given id is not found
      */
+    @Transactional(readOnly = true)
     public CustomerDTO getSingleCustomer(Integer id) {
-        return customerRepository.findById(id)
-                .map(customerDTOMapper)
-                .orElseThrow(() -> new IllegalArgumentException("Customer with id [%s] not found".formatted(id)));
+        CustomerDTO customer = customerRepository.findDTOById(id)
+                .orElseThrow(() -> customerNotFound(id));
+
+        return writeBehindBuffer.pending(id)
+                .map(update -> update.applyTo(customer))
+                .orElse(customer);
+    }
+
+    /**
+     * Retrieves the requested fields of a single customer, selecting only their columns.
+     * As for {@link #getSingleCustomer(Integer)}, the updates still buffered in write-behind mode are applied on top.
+     *
+     * @param id the unique identifier of the customer
+     * @param fields the fields to return
+     * @return the requested fields of the customer, keyed by their serialized name
+     * @throws NotFoundException if the customer with the given id is not found
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSingleCustomer(Integer id, CustomerFields fields) {
+        CustomerDTO customer = customerSearchDAO.findById(id, fields)
+                .orElseThrow(() -> customerNotFound(id));
+
+        return fields.project(writeBehindBuffer.pending(id)
+                .map(update -> update.applyTo(customer))
+                .orElse(customer));
+    }
+
+    /**
+     * Returns several customers with a single query, in the order of the requested ids,
+     * each id that matches no customer getting a not found result.
+     * As for {@link #getSingleCustomer(Integer)}, the updates still buffered in write-behind mode are applied on top.
+     *
+     * @param ids the unique identifiers of the customers
+     * @return one result per requested id, in request order
+     * @throws InvalidRequestException if there are no ids, more than {@value #MAX_BATCH_SIZE}, or a null one
+     */
+    @Transactional(readOnly = true)
+    public CustomerBatchResponse getCustomers(List<Integer> ids) {
+        Set<Integer> distinctIds = validateBatch(ids);
+
+        Map<Integer, CustomerDTO> customers = new HashMap<>();
+        for (CustomerDTO customer : customerSearchDAO.findDTOsByIds(distinctIds)) {
+            customers.put(customer.id(), writeBehindBuffer.pending(customer.id())
+                    .map(update -> update.applyTo(customer))
+                    .orElse(customer));
+        }
+
+        return CustomerBatchResponse.of(ids.stream()
+                .map(id -> customers.containsKey(id)
+                        ? CustomerBatchResult.found(id, customers.get(id))
+                        : CustomerBatchResult.notFound(id))
+                .toList());
+    }
+
+    /**
+     * Tells whether a customer has updates buffered in write-behind mode that are not written yet.
+     * Such a customer differs from its stored version, so it cannot be validated against an entity tag.
+     *
+     * @param id the unique identifier of the customer
+     * @return true if updates of the customer are still buffered
+     */
+    public boolean hasBufferedUpdate(Integer id) {
+        return writeBehindBuffer.pending(id).isPresent();
+    }
+
+    /**
+     * Returns the entity tag of a customer without loading it, from its version.
+     * The tag matches the one of the {@link CustomerDTO} returned by {@link #getSingleCustomer(Integer)}
+     * as long as the customer is unchanged.
+     *
+     * @param id the unique identifier of the customer
+     * @return the strong entity tag of the customer
+     * @throws NotFoundException if the customer with the given id is not found
+     */
+    @Transactional(readOnly = true)
+    public String getCustomerETag(Integer id) {
+        return customerRepository.findVersionById(id)
+                .map(version -> CustomerETags.of(id, version))
+                .orElseThrow(() -> customerNotFound(id));
     }
 
     /**
      * Creates a new customer in the system.
+     * The customer is inserted with a single statement whose {@code on conflict} clause detects a taken email,
+     * so concurrent creations with the same email cannot both succeed.
      *
      * @param request the request containing the details of the new customer
      * @return a response containing a message and the id of the newly created customer
-     * @throws IllegalArgumentException if the email provided in the request is already taken
+     * @throws ConflictException if the email provided in the request is already taken
+     * @throws UnauthenticatedException if no user is authenticated
      */
+    @Transactional
     public NewCustomerResponse createCustomer(NewCustomerRequest request) {
         validator.validate(request);
 
-        Customer customer = customerRepository.findByEmail(request.email())
-                .orElse(null);
+        Integer createdBy = auditorAware.getCurrentAuditor()
+                .orElseThrow(() -> new UnauthenticatedException("Customers can only be created by an authenticated user"));
 
-        if(customer != null)
-            throw new IllegalArgumentException("Email [%s] is already taken".formatted(request.email()));
+        Integer id = customerWriteDAO.insert(request, createdBy);
 
-        Customer newCustomer = Customer
-                .builder()
-                .age(request.age())
-                .name(request.name())
-                .email(request.email())
-                .password(request.password())
-                .build();
+        if (id == null)
+            throw new ConflictException("Email [%s] is already taken", request.email());
 
-        Customer savedCustomer = customerRepository.save(newCustomer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(id));
         return new NewCustomerResponse(
                 "Customer successfully created",
-                savedCustomer.getId()
+                id
         );
     }
 
     /**
-     * Deletes a customer from the system by its id.
+     * Deletes a customer from the system by its id, with a single statement that also leaves a tombstone
+     * for the change feed.
      *
      * @param id the unique identifier of the customer to be deleted
-     * @throws IllegalArgumentException if the customer with the given id is not found
+     * @throws NotFoundException if the customer with the given id is not found
      */
+    @Transactional
     public void deleteCustomer(Integer id) {
-        boolean exists = customerRepository.existsById(id);
+        // an update buffered for the customer must not be written after it is deleted
+        writeBehindBuffer.take(id).ifPresent(writeBehindBuffer::restoreOnRollback);
+
+        Integer deletedBy = auditorAware.getCurrentAuditor().orElse(null);
+        boolean deleted = customerWriteDAO.delete(id, deletedBy);
+
+        if(!deleted)
+            throw customerNotFound(id);
+
+        eventPublisher.publishEvent(new CustomerChangedEvent(id));
+    }
 
-        if(!exists)
-            throw new IllegalArgumentException("Customer with id [%s] not found".formatted(id));
+    /**
+     * Deletes several customers with a single statement, which also leaves a tombstone for each of them,
+     * each id that matches no customer getting a not found result instead of failing the whole batch.
+     *
+     * @param ids the unique identifiers of the customers to be deleted
+     * @return one result per requested id, in request order
+     * @throws InvalidRequestException if there are no ids, more than {@value #MAX_BATCH_SIZE}, or a null one
+     */
+    @Transactional
+    public CustomerBatchResponse deleteCustomers(List<Integer> ids) {
+        Set<Integer> distinctIds = validateBatch(ids);
+
+        // updates buffered for the customers must not be written after they are deleted
+        distinctIds.forEach(id -> writeBehindBuffer.take(id).ifPresent(writeBehindBuffer::restoreOnRollback));
 
-        customerRepository.deleteById(id);
+        Integer deletedBy = auditorAware.getCurrentAuditor().orElse(null);
+        Set<Integer> deleted = new HashSet<>(customerWriteDAO.deleteAll(distinctIds, deletedBy));
+
+        deleted.forEach(id -> eventPublisher.publishEvent(new CustomerChangedEvent(id)));
+        return CustomerBatchResponse.of(ids.stream()
+                .map(id -> deleted.contains(id) ? CustomerBatchResult.found(id, null) : CustomerBatchResult.notFound(id))
+                .toList());
+    }
+
+    private static Set<Integer> validateBatch(List<Integer> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw INVALID_BATCH_SIZE;
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw NULL_CUSTOMER_ID;
+        }
+        return new LinkedHashSet<>(ids);
     }
 
     /**
      * Updates an existing customer in the system.
+     * The non-null fields of the request are applied with a single statement, without loading the customer first.
+     * In write-behind mode the update is only checked against the current state of the customer,
+     * served from the cache, and against the emails of the other customers, and is buffered to be written
+     * with the next batch.
      *
      * @param id the unique identifier of the customer to be updated
      * @param request the request containing the details of the new customer
-     * @throws IllegalArgumentException if the customer with the given id is not found
+     * @return true if the update was written, false if it was buffered to be written shortly
+     * @throws NotFoundException if the customer with the given id is not found
+     * @throws InvalidRequestException if nothing changes
+     * @throws ConflictException if the email belongs to another customer
      */
-    public void updateCustomer(Integer id, NewCustomerRequest request) {
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Customer with id [%s] not found".formatted(id)));
-
-        boolean changes = false;
+    @Transactional
+    public boolean updateCustomer(Integer id, NewCustomerRequest request) {
+        if (writeBehindBuffer.isEnabled()) {
+            CustomerDTO customer = getSingleCustomer(id);
 
-        changes |= updateFieldIfNecessary(request.email(), customer.getEmail(), customer::setEmail);
-        changes |= updateFieldIfNecessary(request.name(), customer.getName(), customer::setName);
-        changes |= updateFieldIfNecessary(request.age(), customer.getAge(), customer::setAge);
+            if (!changes(customer, request)) {
+                throw NO_CHANGES;
+            }
+            // checked before the update is acknowledged, the buffer being left with transient failures only
+            if (request.email() != null && !request.email().equals(customer.email())
+                    && customerRepository.existsByEmailAndIdNot(request.email(), id)) {
+                throw new ConflictException("Email [%s] is already taken", request.email());
+            }
 
-        if (!changes) {
-            throw new IllegalArgumentException("No changes found");
+            Integer lastModifiedBy = auditorAware.getCurrentAuditor().orElse(null);
+            if (writeBehindBuffer.offer(id, request, lastModifiedBy)) {
+                return false;
+            }
         }
 
-        customerRepository.save(customer);
+        CustomerWriteDAO.UpdateResult result = applyUpdate(id, request, null);
+
+        if (!result.changed()) {
+            throw NO_CHANGES;
+        }
+        return true;
     }
 
     /**
-     * Compares the new value with the current value and updates the current value if they are different.
-     * Returns true if an update was made, false otherwise.
+     * Partially updates a customer, only writing the columns of the non-null fields of the request.
+     * When an expected version is given the update only applies if the customer is still at that version,
+     * which lets clients update concurrently without locks and without losing each other's changes.
+     * A request that changes nothing leaves the customer and its version untouched.
+     * An update of the customer still buffered in write-behind mode is written along with this one.
      *
-     * @param newValue the new value to be set
-     * @param currentValue the current value
-     * @param updateFunction the function to update the current value
-     * @param <T> the type of the value
-     * @return true if an update was made, false otherwise
+     * @param id the unique identifier of the customer to be updated
+     * @param request the fields to change, absent ones being null
+     * @param expectedVersion the version the client last read, or null to update whatever the current version
+     * @return the version of the customer after the update
+     * @throws NotFoundException if the customer with the given id is not found
+     * @throws VersionConflictException if the customer is no longer at the expected version
+     * @throws ConflictException if the email belongs to another customer
      */
-    private <T> boolean updateFieldIfNecessary(T newValue, T currentValue, Consumer<T> updateFunction) {
-        if (newValue != null && !newValue.equals(currentValue)) {
-            updateFunction.accept(newValue);
-            return true;
+    @Transactional
+    public Integer patchCustomer(Integer id, NewCustomerRequest request, Integer expectedVersion) {
+        CustomerWriteDAO.UpdateResult result = applyUpdate(id, request, expectedVersion);
+        return result.changed() ? result.newVersion() : result.currentVersion();
+    }
+
+    private CustomerWriteDAO.UpdateResult applyUpdate(Integer id, NewCustomerRequest request, Integer expectedVersion) {
+        Integer lastModifiedBy = auditorAware.getCurrentAuditor().orElse(null);
+
+        // an update buffered for the customer is written along with this one, so that it cannot overwrite it
+        // later on; it is not written yet, so the expected version is the one clients were last served.
+        // If this write rolls back, the buffered update is buffered again rather than lost.
+        Optional<BufferedCustomerUpdate> buffered = writeBehindBuffer.take(id);
+        buffered.ifPresent(writeBehindBuffer::restoreOnRollback);
+        NewCustomerRequest merged = buffered
+                .map(update -> update.merge(request, lastModifiedBy).toRequest())
+                .orElse(request);
+
+        CustomerWriteDAO.UpdateResult result;
+        try {
+            result = customerWriteDAO.update(id, merged, expectedVersion, lastModifiedBy);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Email [%s] is already taken", merged.email());
+        }
+
+        if (!result.found()) {
+            throw customerNotFound(id);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(result.currentVersion())) {
+            throw new VersionConflictException(id, result.currentVersion(), CustomerETags.of(id, result.currentVersion()));
         }
-        return false;
+
+        if (result.changed()) {
+            eventPublisher.publishEvent(new CustomerChangedEvent(id));
+        }
+        return result;
+    }
+
+    private static boolean changes(CustomerDTO customer, NewCustomerRequest request) {
+        return (request.name() != null && !request.name().equals(customer.name()))
+                || (request.email() != null && !request.email().equals(customer.email()))
+                || (request.age() != null && !request.age().equals(customer.age()));
+    }
+
+    private static NotFoundException customerNotFound(Integer id) {
+        return new NotFoundException("Customer with id [%s] not found", id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,6 @@
+package com.mock.io.customer;
+
+public enum CustomerSort {
+    ID,
+    CREATED_DATE
+}
@@ -0,0 +1,272 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Node-local statistics over customers, answered from memory whatever the size of the table:
+ * the total count, an age histogram and the number of customers created on every day.
+ * The counters are seeded from a single aggregate query once the application has started, then kept up to date
+ * by the write paths of {@link CustomerWriteDAO} and {@link CustomerImportDAO}, which record their changes
+ * once the transaction commits. They are reseeded periodically, so that writes made by other nodes or outside
+ * the application are eventually accounted for.
+ * Deletions are subtracted from the day their customer was created on, so that the counters always describe
+ * the customers that still exist, as the aggregate query does.
+ */
+@Slf4j
+@Component
+public class CustomerStatistics implements ApplicationRunner {
+    static final int MAX_AGE = 150;
+    // customers without an age, or with one out of the histogram, are counted in the last bucket
+    private static final int UNKNOWN_AGE = MAX_AGE + 1;
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_DAYS = 3660;
+
+    private final Duration reseedInterval;
+    private final CustomerStatisticsDAO statisticsDAO;
+    private final Clock clock;
+
+    private volatile Counters current;
+    private volatile Counters seeding;
+    private ScheduledExecutorService reseedExecutor;
+
+    @Autowired
+    public CustomerStatistics(
+            @Value("${application.customer-statistics.reseed-interval:PT1H}") Duration reseedInterval,
+            CustomerStatisticsDAO statisticsDAO
+    ) {
+        this(reseedInterval, statisticsDAO, Clock.systemDefaultZone());
+    }
+
+    CustomerStatistics(Duration reseedInterval, CustomerStatisticsDAO statisticsDAO, Clock clock) {
+        this.reseedInterval = reseedInterval;
+        this.statisticsDAO = statisticsDAO;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reseed();
+        reseedExecutor = Executors.newSingleThreadScheduledExecutor();
+        long interval = reseedInterval.toMillis();
+        reseedExecutor.scheduleWithFixedDelay(this::reseedQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopReseeding() {
+        if (reseedExecutor != null) {
+            reseedExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the statistics of customers, reading nothing but in-memory counters.
+     *
+     * @param from the first day to count creations on, or null for 30 days ago
+     * @param to the last day to count creations on, or null for today
+     * @return the total count, the age histogram without its empty buckets, and the creations per day
+     * within the range, days without creations being left out
+     * @throws InvalidRequestException if the range is reversed or spans more than ten years
+     * @throws IllegalStateException if the statistics are not seeded yet
+     */
+    public CustomerStatisticsResponse getStatistics(LocalDate from, LocalDate to) {
+        LocalDate last = to == null ? LocalDate.now(clock) : to;
+        LocalDate first = from == null ? last.minusDays(DEFAULT_DAYS - 1) : from;
+
+        if (first.isAfter(last) || ChronoUnit.DAYS.between(first, last) >= MAX_DAYS) {
+            throw new InvalidRequestException("Creation days should be a range of at most %s days", MAX_DAYS);
+        }
+
+        Counters counters = current;
+        if (counters == null) {
+            throw new IllegalStateException("Customer statistics are not seeded yet");
+        }
+
+        List<CustomerStatisticsResponse.AgeCount> ages = new ArrayList<>();
+        for (int age = 0; age <= MAX_AGE; age++) {
+            long customers = counters.ages.get(age);
+            if (customers != 0) {
+                ages.add(new CustomerStatisticsResponse.AgeCount(age, customers));
+            }
+        }
+
+        List<CustomerStatisticsResponse.DayCount> created = new ArrayList<>();
+        counters.created.subMap(first, true, last, true).forEach((day, customers) -> {
+            if (customers.get() != 0) {
+                created.add(new CustomerStatisticsResponse.DayCount(day, customers.get()));
+            }
+        });
+
+        return new CustomerStatisticsResponse(
+                counters.total.get(),
+                counters.ages.get(UNKNOWN_AGE),
+                ages,
+                first,
+                last,
+                created,
+                counters.seededAt
+        );
+    }
+
+    /**
+     * Applies committed changes to the counters, once the current transaction commits if one is active.
+     *
+     * @param changes the customers created, deleted or whose age changed
+     */
+    public void record(Changes changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(changes);
+                }
+            });
+        } else {
+            apply(changes);
+        }
+    }
+
+    /**
+     * Replaces the counters with new ones seeded from the database.
+     * Changes committed while the aggregate query runs are applied to both the old and the new counters,
+     * so that the new ones only miss or double count the changes committing as the query starts.
+     */
+    void reseed() {
+        Counters next = new Counters(LocalDateTime.now(clock));
+        seeding = next;
+        try {
+            CustomerStatisticsDAO.CustomerCounts counts = statisticsDAO.countByAgeAndCreationDay();
+            counts.byAge().forEach((age, customers) -> {
+                next.ages.addAndGet(bucket(age), customers);
+                next.total.addAndGet(customers);
+            });
+            counts.byCreationDay().forEach((day, customers) ->
+                    next.created.computeIfAbsent(day, key -> new AtomicLong()).addAndGet(customers));
+            current = next;
+        } finally {
+            seeding = null;
+        }
+        log.info("Seeded customer statistics with {} customers", next.total.get());
+    }
+
+    private void reseedQuietly() {
+        try {
+            reseed();
+        } catch (RuntimeException e) {
+            log.error("Reseeding customer statistics failed", e);
+        }
+    }
+
+    private void apply(Changes changes) {
+        Counters counters = current;
+        if (counters != null) {
+            counters.apply(changes);
+        }
+        Counters next = seeding;
+        if (next != null) {
+            next.apply(changes);
+        }
+    }
+
+    private static int bucket(Integer age) {
+        return age == null || age < 0 || age > MAX_AGE ? UNKNOWN_AGE : age;
+    }
+
+    /**
+     * Counters updated concurrently without locks.
+     */
+    private static final class Counters {
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLongArray ages = new AtomicLongArray(UNKNOWN_AGE + 1);
+        private final ConcurrentSkipListMap<LocalDate, AtomicLong> created = new ConcurrentSkipListMap<>();
+        private final LocalDateTime seededAt;
+
+        private Counters(LocalDateTime seededAt) {
+            this.seededAt = seededAt;
+        }
+
+        private void apply(Changes changes) {
+            total.addAndGet(changes.total);
+            for (int i = 0; i < changes.ages.length; i++) {
+                if (changes.ages[i] != 0) {
+                    ages.addAndGet(i, changes.ages[i]);
+                }
+            }
+            changes.created.forEach((day, customers) ->
+                    created.computeIfAbsent(day, key -> new AtomicLong()).addAndGet(customers));
+        }
+    }
+
+    /**
+     * Changes made by a write, accumulated before they are recorded, so that a statement touching many customers
+     * is recorded at once.
+     */
+    public static final class Changes {
+        private long total;
+        private final long[] ages = new long[UNKNOWN_AGE + 1];
+        private final Map<LocalDate, Long> created = new HashMap<>();
+
+        public Changes created(Integer age, LocalDate day) {
+            total++;
+            ages[bucket(age)]++;
+            if (day != null) {
+                created.merge(day, 1L, Long::sum);
+            }
+            return this;
+        }
+
+        public Changes deleted(Integer age, LocalDate createdOn) {
+            total--;
+            ages[bucket(age)]--;
+            if (createdOn != null) {
+                created.merge(createdOn, -1L, Long::sum);
+            }
+            return this;
+        }
+
+        public Changes ageChanged(Integer previousAge, Integer newAge) {
+            ages[bucket(previousAge)]--;
+            ages[bucket(newAge)]++;
+            return this;
+        }
+
+        boolean isEmpty() {
+            if (total != 0 || !created.isEmpty()) {
+                return false;
+            }
+            for (long customers : ages) {
+                if (customers != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mock.io.customer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class CustomerStatisticsDAO {
+
+    // one scan of the table, each row belonging to either grouping set depending on grouping(age)
+    private static final String COUNT_BY_AGE_AND_CREATION_DAY = """
+            select age, cast(created_date as date) as creation_day, count(*) as customers, grouping(age) = 1 as by_day
+            from customer
+            group by grouping sets ((age), (cast(created_date as date)))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Counts the customers by age and by day of creation with a single aggregate query.
+     *
+     * @return the number of customers of every age, null standing for customers without an age,
+     * and the number of customers created on every day
+     */
+    public CustomerCounts countByAgeAndCreationDay() {
+        Map<Integer, Long> byAge = new HashMap<>();
+        Map<LocalDate, Long> byCreationDay = new HashMap<>();
+
+        jdbcTemplate.query(COUNT_BY_AGE_AND_CREATION_DAY, rs -> {
+            long customers = rs.getLong("customers");
+            if (rs.getBoolean("by_day")) {
+                Date creationDay = rs.getDate("creation_day");
+                if (creationDay != null) {
+                    byCreationDay.put(creationDay.toLocalDate(), customers);
+                }
+            } else {
+                byAge.put((Integer) rs.getObject("age"), customers);
+            }
+        });
+        return new CustomerCounts(byAge, byCreationDay);
+    }
+
+    public record CustomerCounts(Map<Integer, Long> byAge, Map<LocalDate, Long> byCreationDay) {}
+}
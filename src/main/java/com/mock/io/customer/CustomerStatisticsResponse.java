@@ -0,0 +1,19 @@
+package com.mock.io.customer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record CustomerStatisticsResponse(
+        long total,
+        long unknownAge,
+        List<AgeCount> ages,
+        LocalDate from,
+        LocalDate to,
+        List<DayCount> created,
+        LocalDateTime seededAt
+) {
+    public record AgeCount(int age, long customers) {}
+
+    public record DayCount(LocalDate day, long customers) {}
+}
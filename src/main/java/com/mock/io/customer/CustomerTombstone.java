@@ -0,0 +1,26 @@
+package com.mock.io.customer;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted customer, so that the change feed can report the deletion to clients syncing incrementally.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "customer_tombstone_deleted_at_id_idx", columnList = "deleted_at, customer_id"))
+public class CustomerTombstone {
+    @Id
+    private Integer customerId;
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+    private Integer deletedBy;
+}
@@ -0,0 +1,98 @@
+package com.mock.io.customer;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the tombstones of customers deleted longer ago than the change feed retention, so that the
+ * tombstone table does not grow forever. Clients holding a cursor older than the retention may have missed
+ * purged deletions, so {@link CustomerChangeFeedService} makes them read the feed again from the start.
+ */
+@Slf4j
+@Component
+public class CustomerTombstoneRetention implements ApplicationRunner {
+    static final int PURGE_BATCH_SIZE = 10_000;
+
+    private final CustomerChangeFeedDAO changeFeedDAO;
+    private final Duration retention;
+    private final Duration purgeInterval;
+    private final Clock clock;
+
+    private ScheduledExecutorService purgeExecutor;
+
+    @Autowired
+    public CustomerTombstoneRetention(
+            CustomerChangeFeedDAO changeFeedDAO,
+            @Value("${application.customer-feed.tombstone-retention:P30D}") Duration retention,
+            @Value("${application.customer-feed.purge-interval:PT1H}") Duration purgeInterval
+    ) {
+        this(changeFeedDAO, retention, purgeInterval, Clock.systemDefaultZone());
+    }
+
+    CustomerTombstoneRetention(
+            CustomerChangeFeedDAO changeFeedDAO,
+            Duration retention,
+            Duration purgeInterval,
+            Clock clock
+    ) {
+        this.changeFeedDAO = changeFeedDAO;
+        this.retention = retention;
+        this.purgeInterval = purgeInterval;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor();
+        purgeExecutor.scheduleWithFixedDelay(
+                this::purgeQuietly,
+                purgeInterval.toMillis(),
+                purgeInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    void stopPurging() {
+        if (purgeExecutor != null) {
+            purgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Deletes the expired tombstones in batches, each in its own statement, so that a large backlog
+     * neither holds locks for long nor bloats a single transaction.
+     *
+     * @return the number of deleted tombstones
+     */
+    int purge() {
+        LocalDateTime before = LocalDateTime.now(clock).minus(retention);
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = changeFeedDAO.deleteTombstonesBefore(before, PURGE_BATCH_SIZE);
+            purged += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        return purged;
+    }
+
+    private void purgeQuietly() {
+        try {
+            log.debug("Purged {} customer tombstones older than {}", purge(), retention);
+        } catch (RuntimeException e) {
+            log.error("Purging customer tombstones failed", e);
+        }
+    }
+}
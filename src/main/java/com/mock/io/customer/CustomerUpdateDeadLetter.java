@@ -0,0 +1,37 @@
+package com.mock.io.customer;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A customer update acknowledged in write-behind mode that could not be written after every retry,
+ * kept so that it can be inspected and replayed instead of being lost.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "customer_update_dead_letter_customer_id_idx", columnList = "customer_id"))
+public class CustomerUpdateDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Integer customerId;
+    private String name;
+    private String email;
+    private Integer age;
+    private Integer lastModifiedBy;
+    @Column(nullable = false)
+    private Integer attempts;
+    @Column(length = 2000)
+    private String error;
+    @Column(nullable = false)
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,450 @@
+package com.mock.io.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in write-behind buffer for customer updates.
+ * Updates are coalesced per customer in a map split into independently locked stripes, so that
+ * concurrent updates of different customers rarely contend, and are written as a single JDBC batch
+ * every flush interval, or as soon as the number of buffered customers reaches the flush threshold.
+ * Updates being flushed stay visible to readers until their batch commits, and whatever is buffered
+ * is flushed before the application shuts down.
+ * An update that fails to be written stays buffered and is retried with an exponential backoff;
+ * once it has failed the configured number of times it is kept in the {@code customer_update_dead_letter} table.
+ */
+@Slf4j
+@Component
+public class CustomerWriteBehindBuffer {
+
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int flushThreshold;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final CustomerWriteDAO customerWriteDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final Counter deadLetters;
+
+    private ScheduledExecutorService flushExecutor;
+    private volatile boolean closed;
+    private volatile boolean drained;
+
+    @Autowired
+    public CustomerWriteBehindBuffer(
+            @Value("${application.customer-write-behind.enabled:false}") boolean enabled,
+            @Value("${application.customer-write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${application.customer-write-behind.flush-threshold:1000}") int flushThreshold,
+            @Value("${application.customer-write-behind.stripes:16}") int stripes,
+            @Value("${application.customer-write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${application.customer-write-behind.retry-backoff:PT1S}") Duration retryBackoff,
+            CustomerWriteDAO customerWriteDAO,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry
+    ) {
+        this(enabled, flushInterval, flushThreshold, stripes, maxAttempts, retryBackoff,
+                customerWriteDAO, transactionTemplate, eventPublisher, meterRegistry, Clock.systemUTC());
+    }
+
+    CustomerWriteBehindBuffer(
+            boolean enabled,
+            Duration flushInterval,
+            int flushThreshold,
+            int stripes,
+            int maxAttempts,
+            Duration retryBackoff,
+            CustomerWriteDAO customerWriteDAO,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            Clock clock
+    ) {
+        int size = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.flushThreshold = flushThreshold;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoff = retryBackoff;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.customerWriteDAO = customerWriteDAO;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        Gauge.builder("customer.write.behind.buffered", buffered, AtomicInteger::get)
+                .description("Customers with updates waiting to be written")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("customer.write.behind.dead.letters")
+                .description("Buffered customer updates given up on after every retry failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startFlushing() {
+        if (!enabled) {
+            return;
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor();
+        long interval = flushInterval.toMillis();
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopFlushing() throws InterruptedException {
+        if (flushExecutor == null) {
+            return;
+        }
+
+        closed = true;
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        flush(true);
+        drained = true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers an update of a customer, merging it with the updates of that customer not written yet.
+     *
+     * @param id the id of the customer to update
+     * @param request the new values, absent ones being null
+     * @param auditor the id of the user updating the customer
+     * @return true if the update was buffered, false if write-behind is disabled or shutting down,
+     *         in which case the caller should write the update itself
+     */
+    public boolean offer(Integer id, NewCustomerRequest request, Integer auditor) {
+        if (!enabled) {
+            return false;
+        }
+
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            BufferedCustomerUpdate previous = stripe.updates.get(id);
+            if (previous == null) {
+                previous = BufferedCustomerUpdate.empty(id);
+                buffered.incrementAndGet();
+            }
+            stripe.updates.put(id, previous.merge(request, auditor));
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (buffered.get() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // shutting down, the final flush writes the update
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the changes of a customer not visible in the database yet, including those being flushed.
+     *
+     * @param id the id of the customer
+     * @return the pending changes, or empty if the customer has none
+     */
+    public Optional<BufferedCustomerUpdate> pending(Integer id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            BufferedCustomerUpdate flushing = stripe.flushing.get(id);
+            BufferedCustomerUpdate update = stripe.updates.get(id);
+            if (flushing == null || update == null) {
+                return Optional.ofNullable(update != null ? update : flushing);
+            }
+            return Optional.of(flushing.merge(update));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the update buffered for a customer, so that the caller can write it along with its own write
+     * of the customer and no buffered update overwrites the caller's write later on.
+     * If the update of the customer is being flushed, this waits for the flush to end, so that the flush
+     * cannot commit an older update after the caller's write.
+     *
+     * @param id the id of the customer
+     * @return the removed update, or empty if none was buffered
+     */
+    public Optional<BufferedCustomerUpdate> take(Integer id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            while (stripe.flushing.containsKey(id)) {
+                stripe.flushed.awaitUninterruptibly();
+            }
+            BufferedCustomerUpdate update = stripe.updates.remove(id);
+            if (update != null) {
+                buffered.decrementAndGet();
+                stripe.retries.remove(id);
+            }
+            return Optional.ofNullable(update);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Buffers a {@link #take taken} update again if the current transaction does not commit,
+     * so that an update already acknowledged to its client is not lost with the caller's write.
+     *
+     * @param update the update taken by the caller
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void restoreOnRollback(BufferedCustomerUpdate update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("A taken update can only be restored from within a transaction");
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    restore(update);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes every buffered update that is not waiting for a retry with a single batch.
+     * If the batch fails, the updates are retried one by one, so that one invalid update cannot block the others.
+     * Those that still fail stay buffered until their backoff elapses, and are dead-lettered once they have failed
+     * {@code max-attempts} times.
+     */
+    public void flush() {
+        flush(false);
+    }
+
+    /**
+     * Writes the buffered updates as {@link #flush()} does.
+     *
+     * @param draining whether the application is shutting down, in which case every update is written
+     *                 whatever its backoff and those that fail are dead-lettered at once
+     */
+    private void flush(boolean draining) {
+        flushLock.lock();
+        try {
+            List<BufferedCustomerUpdate> updates = startFlushingUpdates(draining ? Long.MAX_VALUE : clock.millis());
+            if (updates.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, RuntimeException> failures = new HashMap<>();
+            List<FailedUpdate> givenUp;
+            try {
+                write(updates);
+            } catch (RuntimeException e) {
+                if (updates.size() == 1) {
+                    failures.put(updates.get(0).id(), e);
+                } else {
+                    log.warn("Write-behind batch of {} customer updates failed, retrying them one by one", updates.size(), e);
+                    for (BufferedCustomerUpdate update : updates) {
+                        try {
+                            write(List.of(update));
+                        } catch (RuntimeException updateException) {
+                            failures.put(update.id(), updateException);
+                        }
+                    }
+                }
+            } finally {
+                givenUp = endFlushingUpdates(failures, draining);
+            }
+            givenUp.forEach(this::deadLetter);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    private void write(List<BufferedCustomerUpdate> updates) {
+        List<Integer> changed = transactionTemplate.execute(status -> customerWriteDAO.updateAll(updates));
+        if (changed != null) {
+            changed.forEach(id -> eventPublisher.publishEvent(new CustomerChangedEvent(id)));
+        }
+    }
+
+    private List<BufferedCustomerUpdate> startFlushingUpdates(long now) {
+        List<BufferedCustomerUpdate> updates = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<BufferedCustomerUpdate> iterator = stripe.updates.values().iterator();
+                while (iterator.hasNext()) {
+                    BufferedCustomerUpdate update = iterator.next();
+                    Retry retry = stripe.retries.get(update.id());
+                    if (retry == null || retry.dueAt() <= now) {
+                        iterator.remove();
+                        buffered.decrementAndGet();
+                        stripe.flushing.put(update.id(), update);
+                        updates.add(update);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Ends the flush, buffering the failed updates again behind the updates of the same customers offered since,
+     * and waking up the callers waiting to take them.
+     *
+     * @return the failed updates that are given up on and must be dead-lettered
+     */
+    private List<FailedUpdate> endFlushingUpdates(Map<Integer, RuntimeException> failures, boolean draining) {
+        List<FailedUpdate> givenUp = new ArrayList<>();
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (BufferedCustomerUpdate update : stripe.flushing.values()) {
+                    RuntimeException failure = failures.get(update.id());
+                    if (failure == null) {
+                        stripe.retries.remove(update.id());
+                        continue;
+                    }
+
+                    Retry previous = stripe.retries.remove(update.id());
+                    int attempts = previous == null ? 1 : previous.attempts() + 1;
+                    if (draining || attempts >= maxAttempts) {
+                        givenUp.add(new FailedUpdate(update, attempts, failure));
+                        continue;
+                    }
+
+                    log.warn("Write-behind update of customer [{}] failed {} time(s), retrying it later",
+                            update.id(), attempts, failure);
+                    stripe.retries.put(update.id(), new Retry(attempts, now + (retryBackoff.toMillis() << Math.min(attempts - 1, 16))));
+                    requeue(stripe, update);
+                }
+                stripe.flushing.clear();
+                stripe.flushed.signalAll();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return givenUp;
+    }
+
+    private void restore(BufferedCustomerUpdate update) {
+        Stripe stripe = stripeOf(update.id());
+        stripe.lock.lock();
+        try {
+            if (drained) {
+                log.error("Write-behind update of customer [{}] could not be restored after shutdown: {}",
+                        update.id(), update);
+                return;
+            }
+            requeue(stripe, update);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void requeue(Stripe stripe, BufferedCustomerUpdate update) {
+        BufferedCustomerUpdate later = stripe.updates.get(update.id());
+        if (later == null) {
+            buffered.incrementAndGet();
+            stripe.updates.put(update.id(), update);
+        } else {
+            stripe.updates.put(update.id(), update.merge(later));
+        }
+    }
+
+    private void deadLetter(FailedUpdate failed) {
+        deadLetters.increment();
+        log.error("Giving up on write-behind update of customer [{}] after {} attempt(s): {}",
+                failed.update().id(), failed.attempts(), failed.update(), failed.failure());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    customerWriteDAO.deadLetter(failed.update(), failed.attempts(), failed.failure().getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Dead-lettering write-behind update of customer [{}] failed", failed.update().id(), e);
+        }
+    }
+
+    private Stripe stripeOf(Integer id) {
+        int hash = id * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition flushed = lock.newCondition();
+        private final Map<Integer, BufferedCustomerUpdate> updates = new HashMap<>();
+        private final Map<Integer, BufferedCustomerUpdate> flushing = new HashMap<>();
+        // the failed attempts of the updates waiting for a retry
+        private final Map<Integer, Retry> retries = new HashMap<>();
+    }
+
+    private record Retry(int attempts, long dueAt) {}
+
+    private record FailedUpdate(BufferedCustomerUpdate update, int attempts, RuntimeException failure) {}
+}
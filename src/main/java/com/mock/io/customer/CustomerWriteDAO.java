@@ -0,0 +1,381 @@
+package com.mock.io.customer;
+
+import com.mock.io.persistence.SecondLevelCacheEvictor;
+import com.mock.io.persistence.SequenceAllocator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Writes customers with a single statement each, relying on the database for the checks
+ * that would otherwise need a prior read: the email unique constraint, the delete count
+ * and a partial update that reports whether the row exists and whether it changed.
+ * These statements bypass Hibernate, so cached query results over customers are invalidated
+ * and the written customer is evicted from the second-level cache.
+ * The changes they make to the counts, ages and creation days of customers are recorded in {@link CustomerStatistics}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CustomerWriteDAO {
+
+    private static final String INSERT_CUSTOMER = """
+            insert into customer (id, name, email, age, password, created_date, created_by)
+            values (:id, :name, :email, :age, :password, :now, :auditor)
+            on conflict (email) do nothing
+            """;
+    private static final String DELETE_CUSTOMER = """
+            with deleted as (
+                delete from customer
+                where id = :id
+                returning id, age, created_date
+            ), tombstones as (
+                insert into customer_tombstone (customer_id, deleted_at, deleted_by)
+                select id, :now, :auditor
+                from deleted
+                on conflict (customer_id) do update
+                set deleted_at = excluded.deleted_at,
+                    deleted_by = excluded.deleted_by
+            )
+            select id, age, created_date from deleted
+            """;
+    private static final String DELETE_CUSTOMERS = """
+            with deleted as (
+                delete from customer
+                where id = any (:ids)
+                returning id, age, created_date
+            ), tombstones as (
+                insert into customer_tombstone (customer_id, deleted_at, deleted_by)
+                select id, :now, :auditor
+                from deleted
+                on conflict (customer_id) do update
+                set deleted_at = excluded.deleted_at,
+                    deleted_by = excluded.deleted_by
+            )
+            select id, age, created_date from deleted
+            """;
+    private static final String LOCK_AGES = """
+            select id, age
+            from customer
+            where id = any (:ids)
+            for update
+            """;
+    private static final String UPDATE_BUFFERED_CUSTOMER = """
+            update customer
+            set name = coalesce(:name, name),
+                email = coalesce(:email, email),
+                age = coalesce(:age, age),
+                version = version + 1,
+                last_modified_date = :now,
+                last_modified_by = :auditor
+            where id = :id
+              and (coalesce(:name, name), coalesce(:email, email), coalesce(:age, age))
+                  is distinct from (name, email, age)
+            """;
+    private static final String INSERT_DEAD_LETTER = """
+            insert into customer_update_dead_letter
+                (customer_id, name, email, age, last_modified_by, attempts, error, failed_at)
+            values (:id, :name, :email, :age, :auditor, :attempts, :error, :now)
+            """;
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private static final int NAME = 1;
+    private static final int EMAIL = 2;
+    private static final int AGE = 4;
+    // one statement per combination of present fields, indexed by the bits of the combination
+    private static final String[] UPDATE_CUSTOMER = buildUpdateStatements();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SequenceAllocator sequenceAllocator;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final CustomerStatistics customerStatistics;
+
+    /**
+     * Inserts a customer unless its email is already taken, in a single round trip.
+     *
+     * @param request the validated customer to insert
+     * @param createdBy the id of the user creating the customer
+     * @return the id of the new customer, or null if the email is already taken
+     */
+    public Integer insert(NewCustomerRequest request, Integer createdBy) {
+        int id = sequenceAllocator.nextId("customer_id_sequence");
+        LocalDateTime now = LocalDateTime.now();
+
+        int inserted = jdbcTemplate.update(INSERT_CUSTOMER, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("name", request.name())
+                .addValue("email", request.email())
+                .addValue("age", request.age())
+                .addValue("password", request.password())
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("auditor", createdBy));
+
+        if (inserted == 0) {
+            return null;
+        }
+
+        // cached lookups by id may hold "no such customer" for the new row
+        secondLevelCacheEvictor.invalidateAfterCommit("customer");
+        customerStatistics.record(new CustomerStatistics.Changes().created(request.age(), now.toLocalDate()));
+        return id;
+    }
+
+    /**
+     * Deletes a customer and leaves a tombstone for the change feed in its place, in a single round trip.
+     *
+     * @param id the id of the customer to delete
+     * @param deletedBy the id of the user deleting the customer
+     * @return whether the customer existed
+     */
+    public boolean delete(Integer id, Integer deletedBy) {
+        CustomerStatistics.Changes changes = new CustomerStatistics.Changes();
+        List<Integer> deleted = jdbcTemplate.query(DELETE_CUSTOMER, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("auditor", deletedBy, Types.INTEGER), deletedRowMapper(changes));
+
+        if (deleted.isEmpty()) {
+            return false;
+        }
+
+        secondLevelCacheEvictor.invalidateAfterCommit("customer", Customer.class, id);
+        customerStatistics.record(changes);
+        return true;
+    }
+
+    /**
+     * Deletes customers and leaves a tombstone for each of them, in a single round trip whatever their number.
+     *
+     * @param ids the ids of the customers to delete
+     * @param deletedBy the id of the user deleting the customers
+     * @return the ids of the customers that existed
+     */
+    public List<Integer> deleteAll(Collection<Integer> ids, Integer deletedBy) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        CustomerStatistics.Changes changes = new CustomerStatistics.Changes();
+        List<Integer> deleted = jdbcTemplate.query(DELETE_CUSTOMERS, new MapSqlParameterSource()
+                .addValue("ids", CustomerSearchDAO.idArray(ids))
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("auditor", deletedBy, Types.INTEGER), deletedRowMapper(changes));
+
+        if (!deleted.isEmpty()) {
+            secondLevelCacheEvictor.invalidateAfterCommit("customer", Customer.class, deleted);
+            customerStatistics.record(changes);
+        }
+        return deleted;
+    }
+
+    /**
+     * Applies the non-null fields of the request to a customer in a single round trip, optionally only if
+     * the customer is still at the expected version.
+     * Only the columns of the present fields are written, and the row is only written, its version bumped
+     * and its audit columns touched, when one of them actually changes.
+     *
+     * @param id the id of the customer to update
+     * @param request the new values, absent ones being null
+     * @param expectedVersion the version the customer must be at, or null to update whatever its version
+     * @param lastModifiedBy the id of the user updating the customer
+     * @return the version of the customer before the update, and after it if it was written
+     */
+    public UpdateResult update(Integer id, NewCustomerRequest request, Integer expectedVersion, Integer lastModifiedBy) {
+        int shape = (request.name() != null ? NAME : 0)
+                | (request.email() != null ? EMAIL : 0)
+                | (request.age() != null ? AGE : 0);
+
+        CustomerStatistics.Changes changes = new CustomerStatistics.Changes();
+        UpdateResult result = jdbcTemplate.queryForObject(UPDATE_CUSTOMER[shape], new MapSqlParameterSource()
+                        .addValue("id", id)
+                        .addValue("name", request.name(), Types.VARCHAR)
+                        .addValue("email", request.email(), Types.VARCHAR)
+                        .addValue("age", request.age(), Types.INTEGER)
+                        .addValue("expectedVersion", expectedVersion, Types.INTEGER)
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                        .addValue("auditor", lastModifiedBy, Types.INTEGER),
+                (rs, rowNum) -> {
+                    Integer newVersion = (Integer) rs.getObject("new_version");
+                    Integer previousAge = (Integer) rs.getObject("previous_age");
+                    Integer newAge = (Integer) rs.getObject("new_age");
+                    if (newVersion != null && !Objects.equals(previousAge, newAge)) {
+                        changes.ageChanged(previousAge, newAge);
+                    }
+                    return new UpdateResult((Integer) rs.getObject("current_version"), newVersion);
+                });
+
+        if (result.changed()) {
+            secondLevelCacheEvictor.invalidateAfterCommit("customer", Customer.class, id);
+            customerStatistics.record(changes);
+        }
+        return result;
+    }
+
+    /**
+     * Applies the updates buffered in write-behind mode with a single JDBC batch.
+     * Every update only touches its customer when one of its fields actually changes.
+     * When some updates change ages, the previous ages are read and locked first, in one more round trip.
+     *
+     * @param updates the coalesced updates, at most one per customer
+     * @return the ids of the customers that changed
+     */
+    public List<Integer> updateAll(List<BufferedCustomerUpdate> updates) {
+        Map<Integer, Integer> previousAges = lockPreviousAges(updates);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource[] batch = updates.stream()
+                .map(update -> new MapSqlParameterSource()
+                        .addValue("id", update.id())
+                        .addValue("name", update.name(), Types.VARCHAR)
+                        .addValue("email", update.email(), Types.VARCHAR)
+                        .addValue("age", update.age(), Types.INTEGER)
+                        .addValue("now", now)
+                        .addValue("auditor", update.lastModifiedBy(), Types.INTEGER))
+                .toArray(MapSqlParameterSource[]::new);
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_BUFFERED_CUSTOMER, batch);
+
+        CustomerStatistics.Changes changes = new CustomerStatistics.Changes();
+        List<Integer> changed = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                BufferedCustomerUpdate update = updates.get(i);
+                changed.add(update.id());
+                Integer previousAge = previousAges.get(update.id());
+                if (update.age() != null && !Objects.equals(previousAge, update.age())) {
+                    changes.ageChanged(previousAge, update.age());
+                }
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            secondLevelCacheEvictor.invalidateAfterCommit("customer", Customer.class, changed);
+            customerStatistics.record(changes);
+        }
+        return changed;
+    }
+
+    /**
+     * Keeps an update buffered in write-behind mode that could not be written, so that it is not lost.
+     *
+     * @param update the update that failed
+     * @param attempts the number of times writing it was attempted
+     * @param error the message of the last failure, truncated to the size of its column
+     */
+    public void deadLetter(BufferedCustomerUpdate update, int attempts, String error) {
+        jdbcTemplate.update(INSERT_DEAD_LETTER, new MapSqlParameterSource()
+                .addValue("id", update.id())
+                .addValue("name", update.name(), Types.VARCHAR)
+                .addValue("email", update.email(), Types.VARCHAR)
+                .addValue("age", update.age(), Types.INTEGER)
+                .addValue("auditor", update.lastModifiedBy(), Types.INTEGER)
+                .addValue("attempts", attempts)
+                .addValue("error", error == null || error.length() <= MAX_ERROR_LENGTH
+                        ? error
+                        : error.substring(0, MAX_ERROR_LENGTH), Types.VARCHAR)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    private Map<Integer, Integer> lockPreviousAges(List<BufferedCustomerUpdate> updates) {
+        List<Integer> ids = updates.stream()
+                .filter(update -> update.age() != null)
+                .map(BufferedCustomerUpdate::id)
+                .toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Integer, Integer> previousAges = new HashMap<>();
+        jdbcTemplate.query(LOCK_AGES, new MapSqlParameterSource("ids", CustomerSearchDAO.idArray(ids)), rs -> {
+            previousAges.put(rs.getInt("id"), (Integer) rs.getObject("age"));
+        });
+        return previousAges;
+    }
+
+    private static RowMapper<Integer> deletedRowMapper(CustomerStatistics.Changes changes) {
+        return (rs, rowNum) -> {
+            Timestamp createdDate = rs.getTimestamp("created_date");
+            changes.deleted(
+                    (Integer) rs.getObject("age"),
+                    createdDate == null ? null : createdDate.toLocalDateTime().toLocalDate()
+            );
+            return rs.getInt("id");
+        };
+    }
+
+    private static String[] buildUpdateStatements() {
+        String[] statements = new String[(NAME | EMAIL | AGE) + 1];
+        for (int shape = 0; shape < statements.length; shape++) {
+            List<String> columns = new ArrayList<>();
+            if ((shape & NAME) != 0) {
+                columns.add("name");
+            }
+            if ((shape & EMAIL) != 0) {
+                columns.add("email");
+            }
+            if ((shape & AGE) != 0) {
+                columns.add("age");
+            }
+
+            String assignments = columns.stream()
+                    .map(column -> column + " = :" + column + ", ")
+                    .collect(Collectors.joining());
+            String changes = columns.isEmpty()
+                    ? "false"
+                    : columns.stream()
+                            .map(column -> "c." + column + " is distinct from :" + column)
+                            .collect(Collectors.joining(" or "));
+
+            statements[shape] = """
+                    with target as (
+                        select id, version, age
+                        from customer
+                        where id = :id
+                        for update
+                    ), updated as (
+                        update customer c
+                        set %sversion = t.version + 1,
+                            last_modified_date = :now,
+                            last_modified_by = :auditor
+                        from target t
+                        where c.id = t.id
+                          and (cast(:expectedVersion as integer) is null or t.version = :expectedVersion)
+                          and (%s)
+                        returning c.version, c.age
+                    )
+                    select (select version from target) as current_version,
+                           (select version from updated) as new_version,
+                           (select age from target) as previous_age,
+                           (select age from updated) as new_age
+                    """.formatted(assignments, changes);
+        }
+        return statements;
+    }
+
+    /**
+     * Outcome of an update.
+     *
+     * @param currentVersion the version of the customer before the update, null if it does not exist
+     * @param newVersion the version of the customer after the update, null if it was not written
+     */
+    public record UpdateResult(Integer currentVersion, Integer newVersion) {
+        public boolean found() {
+            return currentVersion != null;
+        }
+
+        public boolean changed() {
+            return newVersion != null;
+        }
+    }
+}
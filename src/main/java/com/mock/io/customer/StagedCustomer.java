@@ -0,0 +1,6 @@
+package com.mock.io.customer;
+
+record StagedCustomer(
+        long line,
+        NewCustomerRequest request
+) {}
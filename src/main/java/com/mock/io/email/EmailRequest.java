@@ -0,0 +1,10 @@
+package com.mock.io.email;
+
+public record EmailRequest(
+        String to,
+        String username,
+        EmailTemplateName emailTemplate,
+        String confirmationUrl,
+        String activationCode,
+        String subject
+) {}
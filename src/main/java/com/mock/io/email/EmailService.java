@@ -4,6 +4,7 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -11,7 +12,9 @@ import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -33,11 +36,47 @@ public class EmailService {
             String activationCode,
             String subject
     ) throws MessagingException {
+        MimeMessage mimeMessage = buildMessage(
+                new EmailRequest(to, username, emailTemplate, confirmationUrl, activationCode, subject)
+        );
+        mailSender.send(mimeMessage);
+    }
+
+    /**
+     * Renders every email and hands them to the mail sender in a single call, so the whole
+     * batch goes through one SMTP connection instead of one connection per recipient.
+     * Emails that cannot be rendered or delivered are logged and skipped.
+     *
+     * @param emails the emails to send
+     */
+    @Async
+    public void sendEmails(List<EmailRequest> emails) {
+        List<MimeMessage> mimeMessages = new ArrayList<>(emails.size());
+        for (EmailRequest email : emails) {
+            try {
+                mimeMessages.add(buildMessage(email));
+            } catch (MessagingException e) {
+                log.error("Could not build email for [{}]", email.to(), e);
+            }
+        }
+
+        if (mimeMessages.isEmpty()) {
+            return;
+        }
+
+        try {
+            mailSender.send(mimeMessages.toArray(new MimeMessage[0]));
+        } catch (MailException e) {
+            log.error("Bulk email send failed for some of the {} messages", mimeMessages.size(), e);
+        }
+    }
+
+    private MimeMessage buildMessage(EmailRequest email) throws MessagingException {
         String templateName;
-        if (emailTemplate == null) {
+        if (email.emailTemplate() == null) {
             templateName = "confirm-email";
         } else {
-            templateName = emailTemplate.getName();
+            templateName = email.emailTemplate().getName();
         }
         MimeMessage mimeMessage = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(
@@ -46,21 +85,21 @@ public class EmailService {
                 UTF_8.name()
         );
         Map<String, Object> properties = new HashMap<>();
-        properties.put("username", username);
-        properties.put("confirmationUrl", confirmationUrl);
-        properties.put("activation_code", activationCode);
+        properties.put("username", email.username());
+        properties.put("confirmationUrl", email.confirmationUrl());
+        properties.put("activation_code", email.activationCode());
 
         Context context = new Context();
         context.setVariables(properties);
 
         helper.setFrom("contact@aliboucoding.com");
-        helper.setTo(to);
-        helper.setSubject(subject);
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
 
         String template = templateEngine.process(templateName, context);
 
         helper.setText(template, true);
 
-        mailSender.send(mimeMessage);
+        return mimeMessage;
     }
-}
\ No newline at end of file
+}
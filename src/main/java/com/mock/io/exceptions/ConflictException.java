@@ -0,0 +1,12 @@
+package com.mock.io.exceptions;
+
+/**
+ * Thrown when a request conflicts with the current state of a resource, such as an email already taken,
+ * answered with a 409.
+ */
+public class ConflictException extends DomainException {
+
+    public ConflictException(String messageFormat, Object... arguments) {
+        super(messageFormat, arguments);
+    }
+}
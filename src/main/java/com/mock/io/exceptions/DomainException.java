@@ -0,0 +1,33 @@
+package com.mock.io.exceptions;
+
+/**
+ * Base of the exceptions signaling an expected outcome of a request, such as a missing resource, rather than a bug.
+ * They are thrown on paths that clients can trigger at will, so they capture no stack trace, and their message
+ * is only formatted if it is actually read. Holding no stack trace nor suppressed exceptions, an instance with
+ * a constant message can be allocated once and thrown again and again.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    private static final Object[] NO_ARGUMENTS = {};
+
+    private final String messageFormat;
+    private final Object[] arguments;
+
+    protected DomainException() {
+        this(null, NO_ARGUMENTS);
+    }
+
+    protected DomainException(String messageFormat, Object... arguments) {
+        super(null, null, false, false);
+        this.messageFormat = messageFormat;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public String getMessage() {
+        if (messageFormat == null || arguments.length == 0) {
+            return messageFormat;
+        }
+        return messageFormat.formatted(arguments);
+    }
+}
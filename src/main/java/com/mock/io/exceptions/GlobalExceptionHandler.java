@@ -1,5 +1,7 @@
 package com.mock.io.exceptions;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -13,4 +15,42 @@ public class GlobalExceptionHandler {
                 .badRequest()
                 .body(exception.getErrorMessages());
     }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<VersionConflictResponse> handleVersionConflictException(VersionConflictException exception) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .eTag(exception.getCurrentETag())
+                .body(new VersionConflictResponse(
+                        "The resource was modified concurrently, retry with its current version",
+                        exception.getCurrentVersion()
+                ));
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ProblemDetail> handleNotFoundException(NotFoundException exception) {
+        return problem(HttpStatus.NOT_FOUND, exception);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ProblemDetail> handleConflictException(ConflictException exception) {
+        return problem(HttpStatus.CONFLICT, exception);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ProblemDetail> handleInvalidRequestException(InvalidRequestException exception) {
+        return problem(HttpStatus.BAD_REQUEST, exception);
+    }
+
+    @ExceptionHandler(UnauthenticatedException.class)
+    public ResponseEntity<ProblemDetail> handleUnauthenticatedException(UnauthenticatedException exception) {
+        return problem(HttpStatus.UNAUTHORIZED, exception);
+    }
+
+    // rendered as application/problem+json with only a title, a status and a detail
+    private static ResponseEntity<ProblemDetail> problem(HttpStatus status, DomainException exception) {
+        return ResponseEntity
+                .status(status)
+                .body(ProblemDetail.forStatusAndDetail(status, exception.getMessage()));
+    }
 }
@@ -0,0 +1,11 @@
+package com.mock.io.exceptions;
+
+/**
+ * Thrown when the parameters of a request are malformed or out of bounds, answered with a 400.
+ */
+public class InvalidRequestException extends DomainException {
+
+    public InvalidRequestException(String messageFormat, Object... arguments) {
+        super(messageFormat, arguments);
+    }
+}
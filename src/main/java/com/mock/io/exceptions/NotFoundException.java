@@ -0,0 +1,11 @@
+package com.mock.io.exceptions;
+
+/**
+ * Thrown when the resource a request targets does not exist, answered with a 404.
+ */
+public class NotFoundException extends DomainException {
+
+    public NotFoundException(String messageFormat, Object... arguments) {
+        super(messageFormat, arguments);
+    }
+}
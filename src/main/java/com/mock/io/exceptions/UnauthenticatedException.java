@@ -0,0 +1,11 @@
+package com.mock.io.exceptions;
+
+/**
+ * Thrown when a request needs an authenticated user and none is, answered with a 401.
+ */
+public class UnauthenticatedException extends DomainException {
+
+    public UnauthenticatedException(String messageFormat, Object... arguments) {
+        super(messageFormat, arguments);
+    }
+}
@@ -0,0 +1,24 @@
+package com.mock.io.exceptions;
+
+/**
+ * Thrown when a conditional update targets a version of a resource that is no longer current.
+ */
+public class VersionConflictException extends ConflictException {
+
+    private final Integer currentVersion;
+    private final String currentETag;
+
+    public VersionConflictException(Integer customerId, Integer currentVersion, String currentETag) {
+        super("Customer [%s] is at version %s", customerId, currentVersion);
+        this.currentVersion = currentVersion;
+        this.currentETag = currentETag;
+    }
+
+    public Integer getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public String getCurrentETag() {
+        return currentETag;
+    }
+}
@@ -0,0 +1,6 @@
+package com.mock.io.exceptions;
+
+public record VersionConflictResponse(
+        String message,
+        Integer currentVersion
+) {}
@@ -0,0 +1,306 @@
+package com.mock.io.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes the configured POST endpoints idempotent for clients sending an {@code Idempotency-Key} header.
+ * The response of the first request sent with a key is stored in the {@link IdempotencyStore}, and the retries
+ * sent with the same key and the same body are answered with it, without reaching the controllers.
+ * Retries arriving while the first request still runs wait for its response instead of racing it.
+ * Endpoints are matched on their path within the application, that is the request URI without the context path.
+ * Keys are scoped to the path and to the authenticated user, and reusing a key with another body is rejected.
+ * Anonymous callers cannot be told apart, so their keys are also scoped to the body: a key reused with another
+ * body then runs as a new request, and a response is only replayed to a caller that sent the very same body.
+ * Server errors are not stored, so a request that failed that way runs again when retried.
+ * This filter runs after the security filter chain, so a replay is only served to an authorized request.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final boolean enabled;
+    private final Set<String> paths;
+    private final Duration waitTimeout;
+    private final int maxBodySize;
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter rejected;
+
+    public IdempotencyFilter(
+            @Value("${application.idempotency.enabled:true}") boolean enabled,
+            @Value("${application.idempotency.paths:/api/v1/customers,/auth/register}") List<String> paths,
+            @Value("${application.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+            @Value("${application.idempotency.max-body-size:64KB}") DataSize maxBodySize,
+            IdempotencyStore store,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.paths = Set.copyOf(paths);
+        this.waitTimeout = waitTimeout;
+        this.maxBodySize = (int) Math.min(maxBodySize.toBytes(), Integer.MAX_VALUE - 8);
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.executed = Counter.builder("idempotency.requests")
+                .description("Requests sent with an idempotency key, by outcome")
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("idempotency.requests")
+                .description("Requests sent with an idempotency key, by outcome")
+                .tag("outcome", "replayed")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("idempotency.requests")
+                .description("Requests sent with an idempotency key, by outcome")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY) == null
+                || !paths.contains(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY).strip();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST,
+                    "The Idempotency-Key header should hold between 1 and %d characters".formatted(MAX_KEY_LENGTH));
+            return;
+        }
+
+        // the body is hashed before the request runs, so it is read up front, within a bound
+        byte[] body = request.getInputStream().readNBytes(maxBodySize + 1);
+        if (body.length > maxBodySize) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Requests sent with an Idempotency-Key should not exceed %d bytes".formatted(maxBodySize));
+            return;
+        }
+
+        byte[] fingerprint = sha256(body);
+        String key = scope(request, fingerprint) + " " + path(request) + " " + idempotencyKey;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            CompletableFuture<StoredResponse> existing = store.reserve(key);
+            if (existing == null) {
+                execute(new CachedBodyRequest(request, body), response, filterChain, key, fingerprint);
+                return;
+            }
+
+            StoredResponse stored;
+            try {
+                stored = existing.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Stored responses are never completed exceptionally", e);
+            }
+
+            // the request holding the key gave it up, the next one in line runs
+            if (stored == null) {
+                continue;
+            }
+
+            if (!Arrays.equals(stored.fingerprint(), fingerprint)) {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "The Idempotency-Key was already used with another request body");
+                return;
+            }
+
+            replay(stored, response);
+            return;
+        }
+    }
+
+    private void execute(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain,
+            String key,
+            byte[] fingerprint
+    ) throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, recorded);
+            if (recorded.getStatus() < 500) {
+                store.complete(key, new StoredResponse(
+                        fingerprint,
+                        recorded.getStatus(),
+                        recorded.getContentType(),
+                        recorded.getHeader(HttpHeaders.LOCATION),
+                        recorded.getHeader(HttpHeaders.ETAG),
+                        recorded.getContentAsByteArray()
+                ));
+                completed = true;
+            }
+            executed.increment();
+        } finally {
+            if (!completed) {
+                store.release(key);
+            }
+            recorded.copyBodyToResponse();
+        }
+    }
+
+    private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.eTag() != null) {
+            response.setHeader(HttpHeaders.ETAG, stored.eTag());
+        }
+        response.setHeader(REPLAYED, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+        replayed.increment();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String detail) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ProblemDetail.forStatusAndDetail(status, detail));
+        rejected.increment();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+
+    private static String scope(HttpServletRequest request, byte[] fingerprint) {
+        Principal principal = request.getUserPrincipal();
+        return principal == null
+                ? "anonymous:" + HexFormat.of().formatHex(fingerprint)
+                : "user:" + principal.getName();
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The request with its body already read, handed over to the rest of the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("The body was already read");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(
+                    getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)
+            ));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mock.io.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyRecordDAO {
+
+    private static final String CREATE_TABLE = """
+            create table if not exists idempotency_record (
+                key varchar(512) primary key,
+                fingerprint bytea not null,
+                status integer not null,
+                content_type varchar(255),
+                location varchar(2048),
+                etag varchar(255),
+                body bytea not null,
+                expires_at timestamp not null
+            )
+            """;
+    private static final String CREATE_EXPIRY_INDEX = """
+            create index if not exists idempotency_record_expires_at_idx on idempotency_record (expires_at)
+            """;
+    private static final String FIND_RECORD = """
+            select fingerprint, status, content_type, location, etag, body
+            from idempotency_record
+            where key = ? and expires_at > ?
+            """;
+    // an expired record that was not purged yet is replaced
+    private static final String SAVE_RECORD = """
+            insert into idempotency_record (key, fingerprint, status, content_type, location, etag, body, expires_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            on conflict (key) do update
+            set fingerprint = excluded.fingerprint,
+                status = excluded.status,
+                content_type = excluded.content_type,
+                location = excluded.location,
+                etag = excluded.etag,
+                body = excluded.body,
+                expires_at = excluded.expires_at
+            where idempotency_record.expires_at <= ?
+            """;
+    private static final String DELETE_EXPIRED = "delete from idempotency_record where expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE);
+        jdbcTemplate.execute(CREATE_EXPIRY_INDEX);
+    }
+
+    /**
+     * Finds the response stored for an idempotency key, unless it has expired.
+     *
+     * @param key the scoped idempotency key
+     * @param now the current time
+     * @return the stored response, or empty if there is none or it has expired
+     */
+    public Optional<StoredResponse> find(String key, LocalDateTime now) {
+        return jdbcTemplate.query(FIND_RECORD, (rs, rowNum) -> new StoredResponse(
+                rs.getBytes("fingerprint"),
+                rs.getInt("status"),
+                rs.getString("content_type"),
+                rs.getString("location"),
+                rs.getString("etag"),
+                rs.getBytes("body")
+        ), key, Timestamp.valueOf(now)).stream().findFirst();
+    }
+
+    /**
+     * Stores the response of an idempotency key, unless a response that has not expired is already stored for it.
+     *
+     * @param key the scoped idempotency key
+     * @param response the response to store
+     * @param now the current time
+     * @param expiresAt the time after which the response is no longer replayed
+     */
+    public void save(String key, StoredResponse response, LocalDateTime now, LocalDateTime expiresAt) {
+        jdbcTemplate.update(
+                SAVE_RECORD,
+                key,
+                response.fingerprint(),
+                response.status(),
+                response.contentType(),
+                response.location(),
+                response.eTag(),
+                response.body(),
+                Timestamp.valueOf(expiresAt),
+                Timestamp.valueOf(now)
+        );
+    }
+
+    /**
+     * Deletes the responses that have expired.
+     *
+     * @param now the current time
+     * @return the number of deleted responses
+     */
+    public int deleteExpired(LocalDateTime now) {
+        return jdbcTemplate.update(DELETE_EXPIRED, Timestamp.valueOf(now));
+    }
+}
@@ -0,0 +1,243 @@
+package com.mock.io.idempotency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Responses stored per idempotency key for a bounded time, so that retries are answered without running again.
+ * Keys are spread over stripes, each a small LRU map under its own lock, so requests with different keys
+ * rarely contend and the store never holds more than its configured number of entries.
+ * A key is reserved by the first request sent with it until its response is stored: the requests sent with
+ * the same key meanwhile wait on that response instead of running concurrently.
+ * Responses may also be persisted, so that they survive restarts and are replayed by every node; only
+ * the in-memory reservation is node-local, so duplicates reaching two nodes at once may both run.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore implements ApplicationRunner {
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+    private final Duration ttl;
+    private final boolean persistent;
+    private final Stripe[] stripes;
+    private final IdempotencyRecordDAO recordDAO;
+    private final Clock clock;
+
+    private ScheduledExecutorService purgeExecutor;
+
+    @Autowired
+    public IdempotencyStore(
+            @Value("${application.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${application.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${application.idempotency.stripes:16}") int stripes,
+            @Value("${application.idempotency.persistent:false}") boolean persistent,
+            IdempotencyRecordDAO recordDAO,
+            MeterRegistry meterRegistry
+    ) {
+        this(ttl, maxEntries, stripes, persistent, recordDAO, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    IdempotencyStore(
+            Duration ttl,
+            int maxEntries,
+            int stripes,
+            boolean persistent,
+            IdempotencyRecordDAO recordDAO,
+            MeterRegistry meterRegistry,
+            Clock clock
+    ) {
+        if (stripes < 1 || maxEntries < stripes) {
+            throw new IllegalArgumentException("The idempotency store needs at least one stripe and one entry per stripe");
+        }
+        this.ttl = ttl;
+        this.persistent = persistent;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(maxEntries / stripes);
+        }
+        this.recordDAO = recordDAO;
+        this.clock = clock;
+        Gauge.builder("idempotency.store.entries", this, IdempotencyStore::size)
+                .description("Idempotency keys held in memory, reserved or with a stored response")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!persistent) {
+            return;
+        }
+
+        recordDAO.createTable();
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor();
+        purgeExecutor.scheduleWithFixedDelay(
+                this::purgeQuietly,
+                PURGE_INTERVAL.toMillis(),
+                PURGE_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    void stopPurging() {
+        if (purgeExecutor != null) {
+            purgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reserves an idempotency key for the calling request, unless another request holds it.
+     * A caller that gets the reservation must then either {@link #complete} or {@link #release} the key.
+     *
+     * @param key the scoped idempotency key
+     * @return null if the caller now holds the key, or else the response of the request holding it,
+     * which is completed with null if that request releases the key without a response
+     */
+    public CompletableFuture<StoredResponse> reserve(String key) {
+        Stripe stripe = stripeOf(key);
+        long now = clock.millis();
+        Entry entry = new Entry();
+        synchronized (stripe) {
+            Entry existing = stripe.entries.get(key);
+            if (existing != null && existing.expiresAt > now) {
+                return existing.response;
+            }
+            stripe.entries.put(key, entry);
+        }
+
+        if (persistent) {
+            Optional<StoredResponse> stored = find(key);
+            if (stored.isPresent()) {
+                entry.expiresAt = now + ttl.toMillis();
+                entry.response.complete(stored.get());
+                return entry.response;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the response of a reserved key, handing it to the requests waiting on the key.
+     *
+     * @param key the scoped idempotency key
+     * @param response the response to replay until the key expires
+     */
+    public void complete(String key, StoredResponse response) {
+        Stripe stripe = stripeOf(key);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.entries.get(key);
+        }
+        if (entry != null) {
+            entry.expiresAt = clock.millis() + ttl.toMillis();
+            entry.response.complete(response);
+        }
+
+        if (persistent) {
+            try {
+                LocalDateTime now = LocalDateTime.now(clock);
+                recordDAO.save(key, response, now, now.plus(ttl));
+            } catch (RuntimeException e) {
+                log.warn("Persisting the response of an idempotency key failed, it is only kept in memory", e);
+            }
+        }
+    }
+
+    /**
+     * Gives up a reserved key without a response, so that the next request sent with it runs.
+     * The requests waiting on the key are woken up to try and reserve it in turn.
+     *
+     * @param key the scoped idempotency key
+     */
+    public void release(String key) {
+        Stripe stripe = stripeOf(key);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.entries.get(key);
+            if (entry != null && !entry.response.isDone()) {
+                stripe.entries.remove(key);
+            } else {
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            entry.response.complete(null);
+        }
+    }
+
+    private Optional<StoredResponse> find(String key) {
+        try {
+            return recordDAO.find(key, LocalDateTime.now(clock));
+        } catch (RuntimeException e) {
+            log.warn("Looking up a persisted idempotency key failed, the request runs", e);
+            return Optional.empty();
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            int purged = recordDAO.deleteExpired(LocalDateTime.now(clock));
+            log.debug("Purged {} expired idempotency records", purged);
+        } catch (RuntimeException e) {
+            log.error("Purging expired idempotency records failed", e);
+        }
+    }
+
+    private int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    /**
+     * A reservation, then a stored response. A reservation never expires, it lasts until the key is completed
+     * or released.
+     */
+    private static final class Entry {
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+    }
+
+    /**
+     * Entries in access order, the least recently used one being evicted once the stripe is full.
+     */
+    private static final class Stripe {
+        private final LinkedHashMap<String, Entry> entries;
+
+        private Stripe(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mock.io.idempotency;
+
+/**
+ * The response of the first request sent with an idempotency key, replayed to the retries sent with the same key.
+ *
+ * @param fingerprint the hash of the body of the first request, which retries must send unchanged
+ * @param status the status of the response
+ * @param contentType the {@code Content-Type} header of the response, or null
+ * @param location the {@code Location} header of the response, or null
+ * @param eTag the {@code ETag} header of the response, or null
+ * @param body the body of the response
+ */
+public record StoredResponse(
+        byte[] fingerprint,
+        int status,
+        String contentType,
+        String location,
+        String eTag,
+        byte[] body
+) {}
@@ -1,5 +1,6 @@
 package com.mock.io.lecture;
 
+import com.mock.io.persistence.PooledSequenceGenerator;
 import com.mock.io.resource.Resource;
 import com.mock.io.section.Section;
 import jakarta.persistence.*;
@@ -7,6 +8,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -22,10 +26,10 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class Lecture {
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "lecture_id_sequence",
-            sequenceName = "lecture_id_sequence",
-            allocationSize = 1
+            type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "lecture_id_sequence")
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
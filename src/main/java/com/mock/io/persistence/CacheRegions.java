@@ -0,0 +1,20 @@
+package com.mock.io.persistence;
+
+import java.util.List;
+
+/**
+ * Names of the Hibernate second-level cache regions, each backed by a cache configured in {@link SecondLevelCacheConfig}.
+ */
+public final class CacheRegions {
+    public static final String CUSTOMER = "customer";
+    public static final String ROLE = "role";
+    public static final String USER = "user";
+    public static final String USER_ROLES = "user-roles";
+    public static final String QUERY_RESULTS = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    static final List<String> DOMAIN_REGIONS = List.of(CUSTOMER, ROLE, USER, USER_ROLES);
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,23 @@
+package com.mock.io.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sequenceBlockSizeCustomizer(
+            @Value("${application.persistence.sequence-block-size:50}") int blockSize
+    ) {
+        return properties -> properties.put(PooledSequenceGenerator.BLOCK_SIZE_SETTING, blockSize);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor sequenceBlockSizeMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SequenceBlockSizeMigration.class);
+    }
+}
@@ -0,0 +1,33 @@
+package com.mock.io.persistence;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator using the pooled optimizer with a block size taken from the
+ * {@value #BLOCK_SIZE_SETTING} Hibernate setting instead of a constant in the mapping.
+ * Every {@code nextval} reserves the ids {@code (value - blockSize, value]},
+ * so a session inserting many rows only hits the sequence once per block.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String BLOCK_SIZE_SETTING = "com.mock.io.sequence_block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int blockSize = serviceRegistry
+                .getService(ConfigurationService.class)
+                .getSetting(BLOCK_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_BLOCK_SIZE);
+
+        parameters.put(INCREMENT_PARAM, Integer.toString(blockSize));
+        parameters.put(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
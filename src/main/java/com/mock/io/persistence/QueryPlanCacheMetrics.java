@@ -0,0 +1,40 @@
+package com.mock.io.persistence;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the hits and misses of the Hibernate query plan cache, which tell whether queries are reused
+ * instead of being parsed and translated again. The counts are only collected when
+ * {@code hibernate.generate_statistics} is enabled.
+ */
+@Component
+public class QueryPlanCacheMetrics {
+
+    public QueryPlanCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                .description("Lookups in the Hibernate query plan cache, by result")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                .description("Lookups in the Hibernate query plan cache, by result")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetrics::hitRatio)
+                .description("Share of query plan cache lookups that were hits since startup")
+                .register(meterRegistry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long lookups = hits + statistics.getQueryPlanCacheMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
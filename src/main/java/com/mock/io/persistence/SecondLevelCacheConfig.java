@@ -0,0 +1,71 @@
+package com.mock.io.persistence;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    /**
+     * Builds the local Ehcache manager behind the Hibernate second-level cache, with one heap-bounded cache per region.
+     * The update timestamps region never expires, as the query cache relies on it to know
+     * whether a cached result is older than the last write to one of its tables.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(SecondLevelCacheProperties properties) {
+        CachingProvider cachingProvider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = cachingProvider.getCacheManager(
+                cachingProvider.getDefaultURI(),
+                SecondLevelCacheConfig.class.getClassLoader()
+        );
+
+        for (String region : CacheRegions.DOMAIN_REGIONS) {
+            createCache(cacheManager, region, properties.maxEntries(region), properties.timeToLive(region));
+        }
+        createCache(
+                cacheManager,
+                CacheRegions.QUERY_RESULTS,
+                properties.maxEntries(CacheRegions.QUERY_RESULTS),
+                properties.timeToLive(CacheRegions.QUERY_RESULTS)
+        );
+        createCache(cacheManager, CacheRegions.UPDATE_TIMESTAMPS, properties.maxEntries(CacheRegions.UPDATE_TIMESTAMPS), null);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.cache.use_second_level_cache", true);
+            hibernateProperties.put("hibernate.cache.use_query_cache", true);
+            hibernateProperties.put("hibernate.cache.region.factory_class", "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void createCache(CacheManager cacheManager, String region, long maxEntries, Duration timeToLive) {
+        cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(timeToLive == null
+                                ? ExpiryPolicyBuilder.noExpiration()
+                                : ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                        .build()
+        ));
+    }
+}
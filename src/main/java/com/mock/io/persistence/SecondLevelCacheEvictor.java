@@ -0,0 +1,83 @@
+package com.mock.io.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the second-level cache consistent with writes that bypass Hibernate, such as plain JDBC statements.
+ * The written table is invalidated in the update timestamps the way Hibernate does for its own writes:
+ * up front, so that results cached by concurrent readers while the transaction runs are never considered
+ * up to date, and again once it completes.
+ * Cached entities whose rows were written are evicted once the transaction commits.
+ */
+@Component
+public class SecondLevelCacheEvictor {
+
+    private final EntityManager entityManager;
+
+    public SecondLevelCacheEvictor(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Invalidates the cached query results over a table written by the current transaction.
+     *
+     * @param table the written table
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void invalidateAfterCommit(String table) {
+        invalidateAfterCommit(table, null, List.of());
+    }
+
+    /**
+     * Invalidates the cached query results over a table written by the current transaction,
+     * and evicts the cached state of the entity mapped to the written row.
+     *
+     * @param table the written table
+     * @param entityClass the entity mapped to the table
+     * @param id the id of the written row
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void invalidateAfterCommit(String table, Class<?> entityClass, Object id) {
+        invalidateAfterCommit(table, entityClass, List.of(id));
+    }
+
+    /**
+     * Invalidates the cached query results over a table written by the current transaction,
+     * and evicts the cached state of the entities mapped to the written rows.
+     *
+     * @param table the written table
+     * @param entityClass the entity mapped to the table, or null to only invalidate query results
+     * @param ids the ids of the written rows
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void invalidateAfterCommit(String table, Class<?> entityClass, Collection<?> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Writes bypassing Hibernate must run in a transaction");
+        }
+
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        TimestampsCache timestampsCache = session.getFactory().getCache().getTimestampsCache();
+        Cache cache = session.getFactory().getCache();
+        String[] spaces = {table};
+
+        timestampsCache.preInvalidate(spaces, session);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                timestampsCache.invalidate(spaces, session);
+                if (status == STATUS_COMMITTED && entityClass != null) {
+                    ids.forEach(id -> cache.evictEntityData(entityClass, id));
+                }
+            }
+        });
+    }
+}
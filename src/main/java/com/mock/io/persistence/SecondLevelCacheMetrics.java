@@ -0,0 +1,59 @@
+package com.mock.io.persistence;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the hits and misses of every second-level cache region and of the query cache,
+ * along with their hit ratio. The counts are only collected when {@code hibernate.generate_statistics} is enabled.
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (String region : CacheRegions.DOMAIN_REGIONS) {
+            register(meterRegistry, region, statistics,
+                    stats -> stats.getDomainDataRegionStatistics(region).getHitCount(),
+                    stats -> stats.getDomainDataRegionStatistics(region).getMissCount());
+        }
+        register(meterRegistry, CacheRegions.QUERY_RESULTS, statistics,
+                Statistics::getQueryCacheHitCount,
+                Statistics::getQueryCacheMissCount);
+    }
+
+    private static void register(
+            MeterRegistry meterRegistry,
+            String region,
+            Statistics statistics,
+            ToLongFunction<Statistics> hits,
+            ToLongFunction<Statistics> misses
+    ) {
+        FunctionCounter.builder("hibernate.second.level.cache", statistics, hits::applyAsLong)
+                .description("Lookups in the second-level cache, by region and result")
+                .tag("region", region)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("hibernate.second.level.cache", statistics, misses::applyAsLong)
+                .description("Lookups in the second-level cache, by region and result")
+                .tag("region", region)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> {
+                    long hitCount = hits.applyAsLong(stats);
+                    long lookups = hitCount + misses.applyAsLong(stats);
+                    return lookups == 0 ? 0 : (double) hitCount / lookups;
+                })
+                .description("Share of second-level cache lookups that were hits since startup")
+                .tag("region", region)
+                .register(meterRegistry);
+    }
+}
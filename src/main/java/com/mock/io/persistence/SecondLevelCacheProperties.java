@@ -0,0 +1,30 @@
+package com.mock.io.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sizes and time-to-live of the second-level cache regions.
+ * Regions without an entry in {@code regions}, or without one of the values, use the defaults.
+ */
+@ConfigurationProperties(prefix = "application.cache")
+public record SecondLevelCacheProperties(
+        @DefaultValue("10000") long defaultMaxEntries,
+        @DefaultValue("PT10M") Duration defaultTimeToLive,
+        Map<String, Region> regions
+) {
+    public record Region(Long maxEntries, Duration timeToLive) {}
+
+    long maxEntries(String region) {
+        Region configured = regions == null ? null : regions.get(region);
+        return configured == null || configured.maxEntries() == null ? defaultMaxEntries : configured.maxEntries();
+    }
+
+    Duration timeToLive(String region) {
+        Region configured = regions == null ? null : regions.get(region);
+        return configured == null || configured.timeToLive() == null ? defaultTimeToLive : configured.timeToLive();
+    }
+}
@@ -0,0 +1,83 @@
+package com.mock.io.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class SequenceAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final ConcurrentMap<String, IdBlock> blocks = new ConcurrentHashMap<>();
+
+    public SequenceAllocator(
+            JdbcTemplate jdbcTemplate,
+            @Value("${application.persistence.sequence-block-size:50}") int blockSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Reserves ids from a database sequence for rows that are written with plain JDBC instead of through Hibernate.
+     * Ids are reserved the way {@link PooledSequenceGenerator} does, every {@code nextval} owning the block of ids
+     * that ends at the returned value, so both can draw from the same sequence.
+     *
+     * @param sequence the name of the sequence
+     * @param count the number of ids to reserve
+     * @return the reserved ids, in allocation order
+     */
+    public List<Integer> allocate(String sequence, int count) {
+        List<Integer> ids = new ArrayList<>(count);
+
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + blockSize - 1) / blockSize;
+            List<Integer> highs = jdbcTemplate.queryForList(
+                    "select nextval('%s') from generate_series(1, ?)".formatted(sequence),
+                    Integer.class,
+                    blocks
+            );
+
+            for (int high : highs) {
+                // the very first value of a sequence owns a block of its own, as in the pooled optimizer
+                for (int id = Math.max(1, high - blockSize + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Reserves a single id, for rows written one at a time with plain JDBC.
+     * The rest of the block owned by a {@code nextval} is kept in memory and handed out by the next calls,
+     * so the sequence is only hit once per block, as with {@link PooledSequenceGenerator}.
+     *
+     * @param sequence the name of the sequence
+     * @return the reserved id
+     */
+    public int nextId(String sequence) {
+        IdBlock block = blocks.computeIfAbsent(sequence, name -> new IdBlock());
+
+        synchronized (block) {
+            if (block.next > block.high) {
+                Integer high = jdbcTemplate.queryForObject("select nextval('%s')".formatted(sequence), Integer.class);
+                block.next = Math.max(1, high - blockSize + 1);
+                block.high = high;
+            }
+            return block.next++;
+        }
+    }
+
+    private static final class IdBlock {
+        private int next = 1;
+        private int high = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mock.io.persistence;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Aligns the increment of the existing id sequences with the configured block size before Hibernate starts,
+ * since the pooled optimizer only hands out ids that the sequence skipped over.
+ * Moving the increment forward is safe for the ids already issued: the next {@code nextval} lands one full block
+ * past the last issued value. Instances still allocating one id per {@code nextval} must be stopped first,
+ * as they would hand out ids inside the blocks of the upgraded ones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceBlockSizeMigration implements InitializingBean {
+    @Value("${application.persistence.sequence-block-size:50}")
+    private int blockSize;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<String> sequences = jdbcTemplate.queryForList("""
+                select sequencename
+                from pg_sequences
+                where schemaname = current_schema()
+                  and sequencename like '%\\_id\\_sequence'
+                  and increment_by <> ?
+                """, String.class, blockSize);
+
+        for (String sequence : sequences) {
+            log.info("Setting the increment of sequence {} to {}", sequence, blockSize);
+            jdbcTemplate.execute("alter sequence %s increment by %d".formatted(sequence, blockSize));
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.mock.io.role;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.mock.io.persistence.CacheRegions;
+import com.mock.io.persistence.PooledSequenceGenerator;
 import com.mock.io.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,13 +24,15 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.ROLE)
 @EntityListeners(AuditingEntityListener.class)
 public class Role {
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "role_id_sequence",
-            sequenceName = "role_id_sequence",
-            allocationSize = 1
+            type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "role_id_sequence")
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
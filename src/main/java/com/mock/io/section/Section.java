@@ -2,11 +2,15 @@ package com.mock.io.section;
 
 import com.mock.io.course.Course;
 import com.mock.io.lecture.Lecture;
+import com.mock.io.persistence.PooledSequenceGenerator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -23,10 +27,10 @@ import java.util.List;
 @EntityListeners(AuditingEntityListener.class)
 public class Section {
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "section_id_sequence",
-            sequenceName = "section_id_sequence",
-            allocationSize = 1
+            type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "section_id_sequence")
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -0,0 +1,9 @@
+package com.mock.io.user;
+
+import com.mock.io.auth.RegisterRequest;
+
+import java.util.List;
+
+public record BulkProvisioningRequest(
+        List<RegisterRequest> users
+) {}
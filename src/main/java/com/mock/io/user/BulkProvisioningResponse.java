@@ -0,0 +1,9 @@
+package com.mock.io.user;
+
+import java.util.List;
+
+public record BulkProvisioningResponse(
+        int created,
+        int failed,
+        List<ProvisioningResult> results
+) {}
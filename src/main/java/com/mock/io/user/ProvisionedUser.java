@@ -0,0 +1,14 @@
+package com.mock.io.user;
+
+import com.mock.io.auth.RegisterRequest;
+
+/**
+ * A validated registration whose password has already been hashed, ready to be batch inserted.
+ * The activation code is only set when activation tokens are stored in the token table.
+ */
+record ProvisionedUser(
+        int index,
+        RegisterRequest request,
+        String passwordHash,
+        String activationCode
+) {}
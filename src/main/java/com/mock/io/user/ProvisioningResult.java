@@ -0,0 +1,19 @@
+package com.mock.io.user;
+
+import java.util.Set;
+
+public record ProvisioningResult(
+        int index,
+        String email,
+        ProvisioningStatus status,
+        Integer userId,
+        Set<String> errors
+) {
+    static ProvisioningResult created(int index, String email, Integer userId) {
+        return new ProvisioningResult(index, email, ProvisioningStatus.CREATED, userId, Set.of());
+    }
+
+    static ProvisioningResult failed(int index, String email, ProvisioningStatus status, Set<String> errors) {
+        return new ProvisioningResult(index, email, status, null, errors);
+    }
+}
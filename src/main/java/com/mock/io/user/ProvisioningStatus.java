@@ -0,0 +1,8 @@
+package com.mock.io.user;
+
+public enum ProvisioningStatus {
+    CREATED,
+    INVALID,
+    DUPLICATE_IN_BATCH,
+    EMAIL_TAKEN
+}
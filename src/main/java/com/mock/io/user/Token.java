@@ -1,7 +1,11 @@
 package com.mock.io.user;
 
+import com.mock.io.persistence.PooledSequenceGenerator;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 
@@ -13,10 +17,10 @@ import java.time.LocalDateTime;
 @Entity
 public class Token {
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "token_id_sequence",
-            sequenceName = "token_id_sequence",
-            allocationSize = 1
+            type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "token_id_sequence")
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -1,8 +1,15 @@
 package com.mock.io.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
     Optional<Token> findByToken(String token);
+
+    Optional<Token> findFirstByUserIdAndValidatedAtIsNullAndExpiresAtAfterOrderByExpiresAtDesc(
+            Integer userId,
+            LocalDateTime now
+    );
 }
@@ -2,7 +2,9 @@ package com.mock.io.user;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,6 +17,7 @@ import java.security.Principal;
 public class UserController {
 
     private final UserService userService;
+    private final UserProvisioningService userProvisioningService;
 
     @PatchMapping
     public ResponseEntity<Object> changePassword(
@@ -24,4 +27,10 @@ public class UserController {
         userService.changePassword(request, connectedUser);
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("bulk")
+    @Secured("ADMIN")
+    public ResponseEntity<BulkProvisioningResponse> provisionUsers(@RequestBody BulkProvisioningRequest request) {
+        return ResponseEntity.ok(userProvisioningService.provisionUsers(request));
+    }
 }
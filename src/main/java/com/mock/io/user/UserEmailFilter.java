@@ -0,0 +1,281 @@
+package com.mock.io.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Node-local Bloom filter over the emails of every user, letting registrations skip the lookup of
+ * an email that is definitely not taken, which is the case of almost every new email.
+ * The filter may answer "maybe" for a free email, never "no" for a taken one: it answers "maybe" until
+ * it is first built, emails are added once their insert has committed, and it is rebuilt from the database
+ * periodically, or as soon as it holds more emails than it was sized for, to forget deleted users and keep
+ * its false positive rate at the configured target. The unique constraint on emails stays the final authority.
+ */
+@Slf4j
+@Component
+public class UserEmailFilter {
+
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final Duration rebuildInterval;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private final Counter skippedLookups;
+    private final Counter checkedLookups;
+
+    private volatile Bits current;
+    private volatile Bits rebuilding;
+    private ScheduledExecutorService rebuildExecutor;
+
+    public UserEmailFilter(
+            @Value("${application.user-email-filter.enabled:true}") boolean enabled,
+            @Value("${application.user-email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${application.user-email-filter.min-capacity:100000}") long minCapacity,
+            @Value("${application.user-email-filter.rebuild-interval:PT6H}") Duration rebuildInterval,
+            UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate should be between 0 and 1 exclusive");
+        }
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = Math.max(minCapacity, 1);
+        this.rebuildInterval = rebuildInterval;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.skippedLookups = Counter.builder("user.email.filter.lookups")
+                .description("Email existence checks, by whether the database lookup could be skipped")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
+        this.checkedLookups = Counter.builder("user.email.filter.lookups")
+                .description("Email existence checks, by whether the database lookup could be skipped")
+                .tag("outcome", "checked")
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.false.positive.rate", this, UserEmailFilter::estimatedFalsePositiveRate)
+                .description("Estimated probability that a free email is reported as possibly taken")
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.memory", this, UserEmailFilter::memoryBytes)
+                .description("Memory held by the bits of the filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startRebuilding() {
+        if (!enabled) {
+            return;
+        }
+
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor();
+        rebuildExecutor.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopRebuilding() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tells whether a user may have the given email.
+     *
+     * @param email the email to check
+     * @return false if no user has this email, true if one may have it and the database has to be asked
+     */
+    public boolean mightExist(String email) {
+        Bits bits = current;
+        if (bits == null || bits.mightContain(email)) {
+            checkedLookups.increment();
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Records the email of a new user, once the current transaction commits if one is active.
+     *
+     * @param email the email of the inserted user
+     */
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(email);
+                }
+            });
+        } else {
+            put(email);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the emails in the database, sized for twice as many users.
+     * Emails added while the database is read go to both the old and the new filter, and are added
+     * only after they committed, so that an email is either read from the database or added to the new filter.
+     */
+    void rebuild() {
+        long capacity = Math.max(userRepository.count() * 2, minCapacity);
+        Bits next = new Bits(capacity, falsePositiveRate);
+        rebuilding = next;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(next::put);
+                }
+            });
+            current = next;
+        } finally {
+            rebuilding = null;
+            rebuildRequested.set(false);
+        }
+        log.info("Rebuilt the user email filter with {} emails, {} KiB", next.insertions.get(), next.memoryBytes() / 1024);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Rebuilding the user email filter failed", e);
+        }
+    }
+
+    private void put(String email) {
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(email);
+            if (bits.insertions.get() > bits.capacity && rebuildRequested.compareAndSet(false, true)) {
+                requestRebuild();
+            }
+        }
+        Bits next = rebuilding;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    private void requestRebuild() {
+        if (rebuildExecutor == null) {
+            rebuildRequested.set(false);
+            return;
+        }
+        try {
+            rebuildExecutor.execute(this::rebuildQuietly);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private double estimatedFalsePositiveRate() {
+        Bits bits = current;
+        return bits == null ? 1 : bits.estimatedFalsePositiveRate();
+    }
+
+    private double memoryBytes() {
+        Bits bits = current;
+        return bits == null ? 0 : bits.memoryBytes();
+    }
+
+    /**
+     * The bits of a filter, set concurrently without locks.
+     * Every email sets {@code hashes} bits chosen by double hashing of a 64-bit hash of the email.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final long capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Bits(long capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int wordCount = (int) Math.min((bits + 63) / 64, Integer.MAX_VALUE - 8);
+            this.words = new AtomicLongArray(wordCount);
+            this.size = (long) wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) size / capacity * ln2));
+            this.capacity = capacity;
+        }
+
+        private void put(String email) {
+            long hash = hash(email);
+            long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash + i * step, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+            insertions.incrementAndGet();
+        }
+
+        private boolean mightContain(String email) {
+            long hash = hash(email);
+            long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash + i * step, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double estimatedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / size, hashes);
+        }
+
+        private long memoryBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        private static long hash(String email) {
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < email.length(); i++) {
+                hash = (hash ^ email.charAt(i)) * 0x100000001B3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long hash) {
+            hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+            hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return hash ^ (hash >>> 33);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.mock.io.user;
+
+import com.mock.io.persistence.SecondLevelCacheEvictor;
+import com.mock.io.persistence.SequenceAllocator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class UserProvisioningDAO {
+
+    private static final String INSERT_USER = """
+            insert into _user (id, first_name, last_name, email, password, enabled, locked, created_date)
+            values (?, ?, ?, ?, ?, false, false, ?)
+            on conflict (email) do nothing
+            """;
+    private static final String INSERT_USER_ROLE = "insert into user_role (user_id, role_id) values (?, ?)";
+    private static final String INSERT_TOKEN = """
+            insert into token (id, token, created_at, expires_at, user_id)
+            values (?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceAllocator sequenceAllocator;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+
+    /**
+     * Returns the subset of the given emails that already belong to a user, using a single query.
+     *
+     * @param emails the emails to look up
+     * @return the emails that are already taken
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+
+        List<String> existing = jdbcTemplate.query(
+                "select email from _user where email = any (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", emails.toArray())),
+                (rs, rowNum) -> rs.getString(1)
+        );
+        return new HashSet<>(existing);
+    }
+
+    /**
+     * Inserts the users, their role link and their activation token using JDBC batches.
+     * Users without an activation code get no token row.
+     * Cached query results over users are invalidated, since these inserts bypass Hibernate.
+     * Rows whose email was taken concurrently are skipped by the {@code on conflict} clause
+     * and are absent from the returned map.
+     *
+     * @param users the users to insert
+     * @param roleId the role granted to every inserted user
+     * @param tokenValidity how long the activation tokens stay valid
+     * @return the generated user id of every inserted row, keyed by its index in the request
+     */
+    @Transactional
+    public Map<Integer, Integer> insertUsers(List<ProvisionedUser> users, Integer roleId, Duration tokenValidity) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> userIds = sequenceAllocator.allocate("user_id_sequence", users.size());
+
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_USER, batch(users.size(), (ps, i) -> {
+            ProvisionedUser user = users.get(i);
+            ps.setInt(1, userIds.get(i));
+            ps.setString(2, user.request().firstName());
+            ps.setString(3, user.request().lastName());
+            ps.setString(4, user.request().email());
+            ps.setString(5, user.passwordHash());
+            ps.setTimestamp(6, now);
+        }));
+
+        List<ProvisionedUser> inserted = new ArrayList<>(users.size());
+        Map<Integer, Integer> insertedIds = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                inserted.add(users.get(i));
+                insertedIds.put(users.get(i).index(), userIds.get(i));
+            }
+        }
+
+        if (inserted.isEmpty()) {
+            return insertedIds;
+        }
+
+        // cached lookups by email may hold "no such user" for the new rows
+        secondLevelCacheEvictor.invalidateAfterCommit("_user");
+
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, batch(inserted.size(), (ps, i) -> {
+            ps.setInt(1, insertedIds.get(inserted.get(i).index()));
+            ps.setInt(2, roleId);
+        }));
+
+        List<ProvisionedUser> withToken = inserted.stream()
+                .filter(user -> user.activationCode() != null)
+                .toList();
+
+        if (withToken.isEmpty()) {
+            return insertedIds;
+        }
+
+        Timestamp expiresAt = Timestamp.valueOf(now.toLocalDateTime().plus(tokenValidity));
+        List<Integer> tokenIds = sequenceAllocator.allocate("token_id_sequence", withToken.size());
+        jdbcTemplate.batchUpdate(INSERT_TOKEN, batch(withToken.size(), (ps, i) -> {
+            ProvisionedUser user = withToken.get(i);
+            ps.setInt(1, tokenIds.get(i));
+            ps.setString(2, user.activationCode());
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, expiresAt);
+            ps.setInt(5, insertedIds.get(user.index()));
+        }));
+
+        return insertedIds;
+    }
+
+    private static BatchPreparedStatementSetter batch(int size, RowSetter rowSetter) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                rowSetter.setValues(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+}
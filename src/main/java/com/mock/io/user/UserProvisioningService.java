@@ -0,0 +1,209 @@
+package com.mock.io.user;
+
+import com.mock.io.auth.ActivationCodeGenerator;
+import com.mock.io.auth.ActivationMode;
+import com.mock.io.auth.ActivationTokenSigner;
+import com.mock.io.auth.AuthenticationService;
+import com.mock.io.auth.RegisterRequest;
+import com.mock.io.email.EmailRequest;
+import com.mock.io.email.EmailService;
+import com.mock.io.email.EmailTemplateName;
+import com.mock.io.exceptions.ObjectNotValidException;
+import com.mock.io.role.Role;
+import com.mock.io.role.RoleRepository;
+import com.mock.io.validators.ObjectsValidator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class UserProvisioningService {
+    @Value("${application.mailing.frontend.activation-url}")
+    private String activationUrl;
+    @Value("${application.security.activation.mode:TOKEN}")
+    private ActivationMode activationMode;
+    @Value("${application.provisioning.max-batch-size:5000}")
+    private int maxBatchSize;
+    @Value("${application.provisioning.hashing-threads:4}")
+    private int hashingThreads;
+
+    private final UserProvisioningDAO provisioningDAO;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ActivationCodeGenerator activationCodeGenerator;
+    private final ActivationTokenSigner activationTokenSigner;
+    private final EmailService emailService;
+    private final ObjectsValidator<RegisterRequest> validator;
+    private final UserEmailFilter userEmailFilter;
+
+    private ExecutorService hashingExecutor;
+
+    @PostConstruct
+    void startHashingExecutor() {
+        hashingExecutor = Executors.newFixedThreadPool(hashingThreads);
+    }
+
+    @PreDestroy
+    void stopHashingExecutor() {
+        hashingExecutor.shutdown();
+    }
+
+    /**
+     * Registers a batch of users in one go.
+     * Emails are checked for existence with a single query, skipped for the emails the email filter knows are free, passwords are hashed in parallel on a bounded pool
+     * and the users, their role links and their activation tokens are written with JDBC batches.
+     * Activation emails are queued once the batch has been committed.
+     *
+     * @param request the users to register
+     * @return one result per requested user, in request order
+     * @throws ObjectNotValidException if the batch is larger than the configured maximum
+     */
+    public BulkProvisioningResponse provisionUsers(BulkProvisioningRequest request) {
+        List<RegisterRequest> users = request.users() == null ? List.of() : request.users();
+
+        if (users.size() > maxBatchSize) {
+            throw new ObjectNotValidException(Set.of("A batch cannot contain more than %d users".formatted(maxBatchSize)));
+        }
+
+        ProvisioningResult[] results = new ProvisioningResult[users.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        for (int i = 0; i < users.size(); i++) {
+            RegisterRequest user = users.get(i);
+            String email = user == null ? null : user.email();
+            try {
+                validator.validate(user);
+            } catch (ObjectNotValidException e) {
+                results[i] = ProvisioningResult.failed(i, email, ProvisioningStatus.INVALID, e.getErrorMessages());
+                continue;
+            } catch (IllegalArgumentException e) {
+                results[i] = ProvisioningResult.failed(i, email, ProvisioningStatus.INVALID, Set.of("The user should not be null"));
+                continue;
+            }
+
+            if (candidates.putIfAbsent(email, i) != null) {
+                results[i] = ProvisioningResult.failed(i, email, ProvisioningStatus.DUPLICATE_IN_BATCH,
+                        Set.of("Email [%s] appears more than once in the batch".formatted(email)));
+            }
+        }
+
+        Set<String> possiblyTaken = candidates.keySet().stream()
+                .filter(userEmailFilter::mightExist)
+                .collect(Collectors.toSet());
+        Set<String> existingEmails = provisioningDAO.findExistingEmails(possiblyTaken);
+        for (String email : existingEmails) {
+            int index = candidates.remove(email);
+            results[index] = emailTaken(index, email);
+        }
+
+        List<ProvisionedUser> provisionedUsers = hashPasswords(users, candidates.values());
+
+        if (!provisionedUsers.isEmpty()) {
+            Role userRole = roleRepository.findByName("USER")
+                    .orElseThrow(() -> new IllegalStateException("Role USER wasn't initialized"));
+
+            Map<Integer, Integer> insertedIds = provisioningDAO.insertUsers(
+                    provisionedUsers,
+                    userRole.getId(),
+                    AuthenticationService.ACTIVATION_TOKEN_VALIDITY
+            );
+
+            List<EmailRequest> activationEmails = new ArrayList<>(insertedIds.size());
+            for (ProvisionedUser provisionedUser : provisionedUsers) {
+                int index = provisionedUser.index();
+                RegisterRequest user = provisionedUser.request();
+                Integer userId = insertedIds.get(index);
+
+                if (userId == null) {
+                    results[index] = emailTaken(index, user.email());
+                    continue;
+                }
+
+                results[index] = ProvisioningResult.created(index, user.email(), userId);
+                userEmailFilter.add(user.email());
+                activationEmails.add(activationEmail(provisionedUser, userId));
+            }
+
+            if (!activationEmails.isEmpty()) {
+                emailService.sendEmails(activationEmails);
+            }
+        }
+
+        int created = (int) Arrays.stream(results)
+                .filter(result -> result.status() == ProvisioningStatus.CREATED)
+                .count();
+        return new BulkProvisioningResponse(created, results.length - created, Arrays.asList(results));
+    }
+
+    private EmailRequest activationEmail(ProvisionedUser provisionedUser, Integer userId) {
+        RegisterRequest user = provisionedUser.request();
+        String token = provisionedUser.activationCode();
+        String confirmationUrl = activationUrl;
+
+        if (activationMode == ActivationMode.SIGNED) {
+            token = activationTokenSigner.sign(
+                    userId,
+                    user.email(),
+                    provisionedUser.passwordHash(),
+                    Instant.now().plus(AuthenticationService.ACTIVATION_TOKEN_VALIDITY)
+            );
+            confirmationUrl = activationUrl + "?token=" + token;
+        }
+
+        return new EmailRequest(
+                user.email(),
+                user.firstName() + " " + user.lastName(),
+                EmailTemplateName.ACTIVATE_ACCOUNT,
+                confirmationUrl,
+                token,
+                "Account Activation"
+        );
+    }
+
+    private List<ProvisionedUser> hashPasswords(List<RegisterRequest> users, Iterable<Integer> indexes) {
+        Set<String> activationCodes = new HashSet<>();
+        List<CompletableFuture<ProvisionedUser>> futures = new ArrayList<>();
+
+        for (int index : indexes) {
+            RegisterRequest user = users.get(index);
+            String code = null;
+            if (activationMode == ActivationMode.TOKEN) {
+                code = activationCodeGenerator.generate();
+                while (!activationCodes.add(code)) {
+                    code = activationCodeGenerator.generate();
+                }
+            }
+            String activationCode = code;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> new ProvisionedUser(index, user, passwordEncoder.encode(user.password()), activationCode),
+                    hashingExecutor
+            ));
+        }
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    private static ProvisioningResult emailTaken(int index, String email) {
+        return ProvisioningResult.failed(index, email, ProvisioningStatus.EMAIL_TAKEN,
+                Set.of("Email [%s] is already taken".formatted(email)));
+    }
+}
@@ -1,9 +1,50 @@
 package com.mock.io.user;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
+
+    /**
+     * Streams the email of every user, without loading the users themselves.
+     * The stream must be consumed and closed within a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Enables the account if it is still disabled and its email and password hash still match
+     * the digests carried by a signed activation link.
+     *
+     * Only the {@code _user} table is declared as touched, so that Hibernate evicts the cached users
+     * and the cached queries over users instead of the whole second-level cache.
+     *
+     * @return the number of enabled accounts, 0 or 1
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "_user"))
+    @Query(value = """
+            update _user
+            set enabled = true, last_modified_date = now()
+            where id = :id
+              and enabled = false
+              and substring(sha256(convert_to(email, 'UTF8')) from 1 for 8) = :emailDigest
+              and substring(sha256(convert_to(password, 'UTF8')) from 1 for 8) = :stateDigest
+            """, nativeQuery = true)
+    int enableIfUnchanged(
+            @Param("id") Integer id,
+            @Param("emailDigest") byte[] emailDigest,
+            @Param("stateDigest") byte[] stateDigest
+    );
 }
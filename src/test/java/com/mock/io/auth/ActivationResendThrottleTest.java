@@ -0,0 +1,74 @@
+package com.mock.io.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class ActivationResendThrottleTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T10:15:30Z");
+
+    private ActivationResendThrottle throttle;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        when(clock.instant()).thenReturn(NOW);
+        meterRegistry = new SimpleMeterRegistry();
+        throttle = new ActivationResendThrottle(Duration.ofMinutes(2), 1024, meterRegistry, clock);
+    }
+
+    @Test
+    void itShouldSuppressAReSendWithinTheWindow() {
+        // Given
+        assertTrue(throttle.tryAcquire(42));
+        when(clock.instant()).thenReturn(NOW.plusSeconds(119));
+
+        // When
+        boolean sent = throttle.tryAcquire(42);
+
+        // Then
+        assertFalse(sent);
+        assertEquals(1, meterRegistry.get("activation.resend").tag("outcome", "sent").counter().count());
+        assertEquals(1, meterRegistry.get("activation.resend").tag("outcome", "suppressed").counter().count());
+    }
+
+    @Test
+    void itShouldSendAgainOnceTheWindowHasElapsed() {
+        // Given
+        assertTrue(throttle.tryAcquire(42));
+        when(clock.instant()).thenReturn(NOW.plusSeconds(120));
+
+        // When
+        boolean sent = throttle.tryAcquire(42);
+
+        // Then
+        assertTrue(sent);
+        when(clock.instant()).thenReturn(NOW.plusSeconds(150));
+        assertFalse(throttle.tryAcquire(42));
+    }
+
+    @Test
+    void itShouldThrottleEveryUserSeparately() {
+        // Given
+        assertTrue(throttle.tryAcquire(42));
+
+        // When & Then
+        assertTrue(throttle.tryAcquire(43));
+        assertFalse(throttle.tryAcquire(42));
+        assertFalse(throttle.tryAcquire(43));
+    }
+}
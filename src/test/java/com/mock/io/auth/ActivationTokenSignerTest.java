@@ -0,0 +1,72 @@
+package com.mock.io.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivationTokenSignerTest {
+
+    private static final String ACTIVATION_KEY = "5f0e8a41c7d2b93e6a18f4c05d27b9e1a3c6f8d20b47e95c1d3a6f2e8b0c4d71";
+    private static final String JWT_KEY = "bc3d1c730bba015e73351257355245f1524860c1b9f4fe9d74351ed8a2883fcb";
+
+    private ActivationTokenSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = new ActivationTokenSigner(ACTIVATION_KEY, JWT_KEY);
+    }
+
+    @Test
+    void itShouldVerifyASignedToken() {
+        // Given
+        Instant expiresAt = Instant.now().plus(15, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS);
+        String token = signer.sign(42, "duclair.fopa@kimbocare.com", "$2a$10$hash", expiresAt);
+
+        // When
+        Optional<SignedActivation> activation = signer.verify(token);
+
+        // Then
+        assertTrue(signer.isSigned(token));
+        assertTrue(activation.isPresent());
+        assertEquals(42, activation.get().userId());
+        assertEquals(expiresAt, activation.get().expiresAt());
+        assertArrayEquals(ActivationTokenSigner.digest("duclair.fopa@kimbocare.com"), activation.get().emailDigest());
+        assertArrayEquals(ActivationTokenSigner.digest("$2a$10$hash"), activation.get().stateDigest());
+        assertFalse(activation.get().isExpired(Instant.now()));
+    }
+
+    @Test
+    void itShouldRejectATamperedToken() {
+        // Given
+        String token = signer.sign(42, "duclair.fopa@kimbocare.com", "$2a$10$hash", Instant.now());
+        String otherToken = signer.sign(43, "duclair.fopa@kimbocare.com", "$2a$10$hash", Instant.now());
+        String forged = otherToken.substring(0, otherToken.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        // When & Then
+        assertTrue(signer.verify(forged).isEmpty());
+        assertTrue(signer.verify("not.base64!").isEmpty());
+        assertFalse(signer.isSigned("123456"));
+    }
+
+    @Test
+    void itShouldRefuseToStartWithoutAnActivationKeyOfItsOwn() {
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> new ActivationTokenSigner("", JWT_KEY));
+        assertThrows(IllegalStateException.class, () -> new ActivationTokenSigner(JWT_KEY, JWT_KEY));
+    }
+
+    @Test
+    void itShouldRejectATokenSignedWithAnotherKey() {
+        // Given
+        ActivationTokenSigner otherSigner = new ActivationTokenSigner(JWT_KEY, ACTIVATION_KEY);
+        String token = otherSigner.sign(42, "duclair.fopa@kimbocare.com", "$2a$10$hash", Instant.now());
+
+        // When & Then
+        assertTrue(signer.verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,76 @@
+package com.mock.io.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mock.io.customer.CustomerDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Decodes a page of a thousand customers as CBOR and as Smile, for a fixed time each, and as JSON for the same
+ * time right after, with the mappers configured the way the application configures them.
+ * Internal clients are offered the binary formats to spend less time parsing bodies, so both are expected
+ * to decode the page faster than JSON.
+ */
+@Slf4j
+@Tag("benchmark")
+class BinaryContentBenchmarkTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(1);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(2);
+    private static final TypeReference<List<CustomerDTO>> CUSTOMER_LIST = new TypeReference<>() {};
+
+    private final List<CustomerDTO> customers = BinaryContentConfigTest.customers(1_000);
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"cbor", "smile"})
+    void itShouldDecodeCustomersFasterThanJson(String format) throws IOException {
+        // Given
+        ObjectMapper binary = BinaryContentConfig.binaryMapper(
+                Jackson2ObjectMapperBuilder.json(),
+                format.equals("cbor") ? new CBORFactory() : new SmileFactory()
+        );
+        byte[] binaryPayload = binary.writeValueAsBytes(customers);
+        byte[] jsonPayload = json.writeValueAsBytes(customers);
+
+        // When
+        long binaryDecodes = decodesWithin(binary, binaryPayload);
+        long jsonDecodes = decodesWithin(json, jsonPayload);
+
+        // Then
+        log.info("{}: {} decodes of {} bytes against {} decodes of {} bytes of JSON in {}",
+                format, binaryDecodes, binaryPayload.length, jsonDecodes, jsonPayload.length, MEASUREMENT);
+        assertTrue(binaryDecodes > jsonDecodes, format);
+    }
+
+    // decodes the payload again and again for the warmup and then for the measurement, counting the latter
+    private long decodesWithin(ObjectMapper mapper, byte[] payload) throws IOException {
+        long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+        while (System.nanoTime() < warmupEnd) {
+            mapper.readValue(payload, CUSTOMER_LIST);
+        }
+
+        long decodes = 0;
+        long end = System.nanoTime() + MEASUREMENT.toNanos();
+        while (System.nanoTime() < end) {
+            assertEquals(customers.size(), mapper.readValue(payload, CUSTOMER_LIST).size());
+            decodes++;
+        }
+        return decodes;
+    }
+}
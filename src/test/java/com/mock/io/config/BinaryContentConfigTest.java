@@ -0,0 +1,143 @@
+package com.mock.io.config;
+
+import com.mock.io.customer.CustomerDTO;
+import com.mock.io.customer.NewCustomerRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class BinaryContentConfigTest {
+
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    private static final Type CUSTOMER_LIST = new ParameterizedTypeReference<List<CustomerDTO>>() {}.getType();
+
+    private BinaryContentConfig binaryContentConfig;
+    private List<HttpMessageConverter<?>> converters;
+
+    @Mock
+    private ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        when(objectMapperBuilders.getObject()).thenAnswer(invocation -> Jackson2ObjectMapperBuilder.json());
+        binaryContentConfig = new BinaryContentConfig(objectMapperBuilders);
+
+        converters = new ArrayList<>(List.of(
+                new ByteArrayHttpMessageConverter(),
+                new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter()
+        ));
+        binaryContentConfig.extendMessageConverters(converters);
+    }
+
+    @Test
+    void itShouldRegisterTheBinaryConvertersOnceRightAfterTheJsonOne() {
+        // Then
+        assertEquals(5, converters.size());
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, converters.get(2));
+        assertInstanceOf(MappingJackson2CborHttpMessageConverter.class, converters.get(3));
+        assertInstanceOf(MappingJackson2SmileHttpMessageConverter.class, converters.get(4));
+    }
+
+    @Test
+    void itShouldRoundTripCustomersAndRequestsInEveryContentType() throws IOException {
+        // Given
+        List<CustomerDTO> customers = customers(50);
+        NewCustomerRequest request = new NewCustomerRequest("Fopa", "fopa@kimbocare.com", 22, "secret");
+
+        for (MediaType contentType : List.of(MediaType.APPLICATION_JSON, CBOR, SMILE)) {
+            GenericHttpMessageConverter<Object> converter = converterFor(contentType);
+
+            // When
+            List<CustomerDTO> decodedCustomers = roundTrip(converter, customers, CUSTOMER_LIST, contentType);
+            NewCustomerRequest decodedRequest = roundTrip(converter, request, NewCustomerRequest.class, contentType);
+
+            // Then
+            assertEquals(customers, decodedCustomers, contentType.toString());
+            assertEquals(request, decodedRequest, contentType.toString());
+        }
+    }
+
+    @Test
+    void itShouldEncodeCustomersMoreCompactlyInBinaryContentTypes() throws IOException {
+        // Given
+        List<CustomerDTO> customers = customers(1_000);
+        int jsonSize = write(converterFor(MediaType.APPLICATION_JSON), customers, MediaType.APPLICATION_JSON).length;
+
+        // When & Then
+        assertTrue(write(converterFor(CBOR), customers, CBOR).length < jsonSize);
+        assertTrue(write(converterFor(SMILE), customers, SMILE).length < jsonSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private GenericHttpMessageConverter<Object> converterFor(MediaType contentType) {
+        return (GenericHttpMessageConverter<Object>) converters.stream()
+                .filter(converter -> converter instanceof GenericHttpMessageConverter<?>
+                        && converter.canWrite(CustomerDTO.class, contentType))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(
+            GenericHttpMessageConverter<Object> converter,
+            T value,
+            Type type,
+            MediaType contentType
+    ) throws IOException {
+        MockHttpInputMessage input = new MockHttpInputMessage(write(converter, value, contentType));
+        input.getHeaders().setContentType(contentType);
+        return (T) converter.read(type, null, input);
+    }
+
+    private static byte[] write(GenericHttpMessageConverter<Object> converter, Object value, MediaType contentType)
+            throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(value, value.getClass(), contentType, output);
+        return output.getBodyAsBytes();
+    }
+
+    static List<CustomerDTO> customers(int count) {
+        LocalDateTime created = LocalDateTime.of(2024, 2, 29, 13, 45, 12, 345_678_000);
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> new CustomerDTO(
+                        id,
+                        "Customer " + id,
+                        "customer" + id + "@kimbocare.com",
+                        18 + id % 27,
+                        created.plusMinutes(id),
+                        id % 3 == 0 ? null : created.plusDays(id),
+                        1,
+                        id % 3 == 0 ? null : 2,
+                        id % 5
+                ))
+                .toList();
+    }
+}
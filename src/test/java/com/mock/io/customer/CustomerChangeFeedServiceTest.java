@@ -0,0 +1,128 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerChangeFeedServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 2, 29, 13, 45, 0);
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    private CustomerChangeFeedService changeFeedService;
+    private CustomerTombstoneRetention tombstoneRetention;
+
+    @Mock
+    private CustomerChangeFeedDAO changeFeedDAO;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        changeFeedService = new CustomerChangeFeedService(changeFeedDAO, RETENTION, clock);
+        tombstoneRetention = new CustomerTombstoneRetention(changeFeedDAO, RETENTION, Duration.ofHours(1), clock);
+    }
+
+    @Test
+    void itShouldReturnChangesSinceTheStartWithTheCursorOfTheLastOne() {
+        // Given
+        CustomerChange created = change(1, CustomerChangeType.CREATED, 700);
+        CustomerChange deleted = change(2, CustomerChangeType.DELETED, 700);
+        CustomerChange updated = change(3, CustomerChangeType.UPDATED, 702);
+
+        when(changeFeedDAO.findChangesAfter(CustomerChangeCursor.START, 3))
+                .thenReturn(List.of(created, deleted, updated));
+
+        // When
+        CustomerChangePage page = changeFeedService.getChanges(null, 2);
+
+        // Then
+        assertEquals(List.of(created, deleted), page.changes());
+        assertTrue(page.hasMore());
+        assertEquals(new CustomerChangeCursor(700, 2, NOW), CustomerChangeCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void itShouldKeepThePositionOfTheCursorWhenNothingChanged() {
+        // Given
+        CustomerChangeCursor cursor = new CustomerChangeCursor(700, 42, NOW.minusHours(1));
+
+        when(changeFeedDAO.findChangesAfter(cursor, 101)).thenReturn(List.of());
+
+        // When
+        CustomerChangePage page = changeFeedService.getChanges(cursor.encode(), null);
+
+        // Then
+        assertTrue(page.changes().isEmpty());
+        assertFalse(page.hasMore());
+        assertEquals(new CustomerChangeCursor(700, 42, NOW), CustomerChangeCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void itShouldStayAtTheStartWhenNothingChangedYet() {
+        // Given
+        when(changeFeedDAO.findChangesAfter(CustomerChangeCursor.START, 101)).thenReturn(List.of());
+
+        // When
+        CustomerChangePage page = changeFeedService.getChanges(null, null);
+
+        // Then
+        assertEquals(CustomerChangeCursor.START, CustomerChangeCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void itShouldThrowWhenCursorIsOlderThanTheTombstoneRetention() {
+        // Given
+        String cursor = new CustomerChangeCursor(700, 42, NOW.minus(RETENTION).minusSeconds(1)).encode();
+
+        // When & Then
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class,
+                () -> changeFeedService.getChanges(cursor, null)
+        );
+        assertTrue(exception.getMessage().contains("from the start"));
+        verifyNoInteractions(changeFeedDAO);
+    }
+
+    @Test
+    void itShouldThrowWhenCursorIsMalformed() {
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> changeFeedService.getChanges("%%%", null));
+        assertThrows(InvalidRequestException.class, () -> changeFeedService.getChanges(null, 0));
+        verifyNoInteractions(changeFeedDAO);
+    }
+
+    @Test
+    void itShouldPurgeTombstonesOlderThanTheRetentionInBatches() {
+        // Given
+        LocalDateTime before = NOW.minus(RETENTION);
+        when(changeFeedDAO.deleteTombstonesBefore(before, CustomerTombstoneRetention.PURGE_BATCH_SIZE))
+                .thenReturn(CustomerTombstoneRetention.PURGE_BATCH_SIZE, 12);
+
+        // When
+        int purged = tombstoneRetention.purge();
+
+        // Then
+        assertEquals(CustomerTombstoneRetention.PURGE_BATCH_SIZE + 12, purged);
+        verify(changeFeedDAO, times(2)).deleteTombstonesBefore(before, CustomerTombstoneRetention.PURGE_BATCH_SIZE);
+    }
+
+    private static CustomerChange change(Integer id, CustomerChangeType type, long transactionId) {
+        LocalDateTime changedAt = NOW.minusMinutes(1);
+        CustomerDTO customer = type == CustomerChangeType.DELETED
+                ? null
+                : new CustomerDTO(id, "Fopa Kuete", "fopa@kimbocare.com", 22, changedAt, null, 1, null, 0);
+        return new CustomerChange(id, type, changedAt, customer, transactionId);
+    }
+}
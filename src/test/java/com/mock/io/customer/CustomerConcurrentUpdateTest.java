@@ -0,0 +1,90 @@
+package com.mock.io.customer;
+
+import com.mock.io.email.EmailService;
+import com.mock.io.exceptions.VersionConflictException;
+import com.mock.io.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CustomerConcurrentUpdateTest {
+
+    private static final String EMAIL = "concurrent.update@kimbocare.com";
+    private static final int THREADS = 4;
+    private static final int INCREMENTS_PER_THREAD = 5;
+
+    @MockBean
+    private EmailService emailService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from customer where email = ?", EMAIL);
+    }
+
+    @Test
+    void itShouldNotLoseConcurrentUpdates() throws Exception {
+        // Given
+        User auditor = User.builder().id(1).email("auditor@kimbocare.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(auditor, null, List.of())
+        );
+        Integer id = customerService.createCustomer(new NewCustomerRequest("Fopa", EMAIL, 20, "secret")).id();
+        SecurityContextHolder.clearContext();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int increment = 0; increment < INCREMENTS_PER_THREAD; increment++) {
+                    while (true) {
+                        CustomerDTO customer = customerService.getSingleCustomer(id);
+                        try {
+                            customerService.patchCustomer(
+                                    id,
+                                    new NewCustomerRequest(null, null, customer.age() + 1, null),
+                                    customer.version()
+                            );
+                            break;
+                        } catch (VersionConflictException e) {
+                            // another thread updated the customer since it was read, read it again
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        CustomerDTO customer = customerService.getSingleCustomer(id);
+        assertEquals(20 + THREADS * INCREMENTS_PER_THREAD, customer.age());
+        assertEquals(THREADS * INCREMENTS_PER_THREAD, customer.version());
+    }
+}
@@ -0,0 +1,39 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCursorTest {
+
+    @Test
+    void itShouldRoundTripCreatedDateCursor() {
+        // Given
+        CustomerCursor cursor = new CustomerCursor(
+                CustomerSort.CREATED_DATE,
+                LocalDateTime.of(2024, 2, 29, 13, 45, 7, 123456000),
+                42
+        );
+
+        // When
+        CustomerCursor decoded = CustomerCursor.decode(cursor.encode(), CustomerSort.CREATED_DATE);
+
+        // Then
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void itShouldThrowWhenCursorWasIssuedForAnotherSort() {
+        // Given
+        String token = new CustomerCursor(CustomerSort.ID, null, 42).encode();
+
+        // When & Then
+        InvalidRequestException thrown = assertThrows(InvalidRequestException.class,
+                () -> CustomerCursor.decode(token, CustomerSort.CREATED_DATE));
+        assertTrue(thrown.getMessage().contains("is not valid"));
+        assertThrows(InvalidRequestException.class, () -> CustomerCursor.decode("%%%", CustomerSort.ID));
+    }
+}
@@ -0,0 +1,54 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerETagsTest {
+
+    @Test
+    void itShouldTagCustomerFromLookupAndFromDTOAlike() {
+        // Given
+        CustomerDTO customer = customer(42, 3);
+
+        // When
+        String fromLookup = CustomerETags.of(42, 3);
+        String fromCustomer = CustomerETags.of(customer);
+
+        // Then
+        assertEquals("\"42-v3\"", fromLookup);
+        assertEquals(fromLookup, fromCustomer);
+        assertNotEquals(fromCustomer, CustomerETags.of(customer(42, 4)));
+    }
+
+    @Test
+    void itShouldReadExpectedVersionFromIfMatch() {
+        // When & Then
+        assertEquals(3, CustomerETags.expectedVersion(42, CustomerETags.of(42, 3)));
+        assertNull(CustomerETags.expectedVersion(42, "*"));
+        assertThrows(InvalidRequestException.class, () -> CustomerETags.expectedVersion(42, CustomerETags.of(7, 3)));
+        assertThrows(InvalidRequestException.class, () -> CustomerETags.expectedVersion(42, "W/\"42-v3\""));
+    }
+
+    @Test
+    void itShouldChangePageTagWhenItemsOrCursorChange() {
+        // Given
+        CustomerPage page = new CustomerPage(List.of(customer(1, 0), customer(2, 0)), "abc");
+
+        // When
+        String tag = CustomerETags.of(page);
+
+        // Then
+        assertEquals(tag, CustomerETags.of(new CustomerPage(List.copyOf(page.items()), "abc")));
+        assertNotEquals(tag, CustomerETags.of(new CustomerPage(page.items(), null)));
+        assertNotEquals(tag, CustomerETags.of(new CustomerPage(List.of(customer(1, 0), customer(2, 1)), "abc")));
+        assertNotEquals(tag, CustomerETags.of(new CustomerPage(List.of(customer(1, 0)), "abc")));
+    }
+
+    private static CustomerDTO customer(Integer id, Integer version) {
+        return new CustomerDTO(id, "Fopa Kuete", "duclair.fopa@kimbocare.com", 22, null, null, 1, 1, version);
+    }
+}
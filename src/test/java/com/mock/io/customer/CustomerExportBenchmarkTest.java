@@ -0,0 +1,100 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+/**
+ * Exports ten million rows and samples the live heap after a full collection every million rows.
+ * The export streams, so the heap is expected to stay within a few megabytes of where it started,
+ * whatever the number of rows.
+ */
+@Tag("benchmark")
+class CustomerExportBenchmarkTest {
+
+    private static final long ROWS = 10_000_000L;
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    private CustomerExportService exportService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        exportService = new CustomerExportService(
+                customerRepository,
+                new CustomerDTOMapper(),
+                entityManager,
+                new ObjectMapper().findAndRegisterModules()
+        );
+    }
+
+    @Test
+    void itShouldExportTenMillionRowsWithFlatHeap() throws IOException {
+        // Given
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(CustomerExportServiceTest.customers(ROWS));
+        HeapSamplingOutputStream outputStream = new HeapSamplingOutputStream();
+
+        // When
+        exportService.exportCustomers(CustomerDataFormat.NDJSON, outputStream);
+
+        // Then
+        assertEquals(ROWS, outputStream.lines);
+        assertTrue(outputStream.maxGrowth < MAX_HEAP_GROWTH,
+                "Heap grew by %d bytes while exporting".formatted(outputStream.maxGrowth));
+    }
+
+    /**
+     * Discards the export, counting lines and sampling the live heap after a full GC every million lines.
+     */
+    private static class HeapSamplingOutputStream extends OutputStream {
+        private static final long SAMPLE_INTERVAL = 1_000_000L;
+
+        private final long baseline = usedHeapAfterGc();
+        private long lines;
+        private long maxGrowth;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                countLine();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    countLine();
+                }
+            }
+        }
+
+        private void countLine() {
+            lines++;
+            if (lines % SAMPLE_INTERVAL == 0) {
+                maxGrowth = Math.max(maxGrowth, usedHeapAfterGc() - baseline);
+            }
+        }
+
+        private static long usedHeapAfterGc() {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
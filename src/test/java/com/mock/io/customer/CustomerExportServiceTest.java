@@ -0,0 +1,160 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerExportServiceTest {
+
+    private CustomerExportService exportService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        exportService = new CustomerExportService(
+                customerRepository,
+                new CustomerDTOMapper(),
+                entityManager,
+                new ObjectMapper().findAndRegisterModules()
+        );
+    }
+
+    @Test
+    void itShouldExportCustomersAsNdjson() throws IOException {
+        // Given
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(customers(2));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        exportService.exportCustomers(CustomerDataFormat.NDJSON, outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"name\":\"Customer 1\""));
+        assertTrue(lines[1].startsWith("{\"id\":2,"));
+    }
+
+    @Test
+    void itShouldEscapeCsvFields() throws IOException {
+        // Given
+        Customer customer = Customer.builder().id(7).name("Kuete, \"Fopa\"").email("fopa@kimbocare.com").age(30).build();
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(customer));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        exportService.exportCustomers(CustomerDataFormat.CSV, outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,name,email,age,createDate,lastModified,createdBy,lastModifiedBy", lines[0]);
+        assertEquals("7,\"Kuete, \"\"Fopa\"\"\",fopa@kimbocare.com,30,,,,", lines[1]);
+    }
+
+    @Test
+    void itShouldWriteRowsAndClearThePersistenceContextWhileStillReading() throws IOException {
+        // Given
+        int rows = 2 * CustomerExportService.CLEAR_INTERVAL + 500;
+        AtomicInteger clears = new AtomicInteger();
+        doAnswer(invocation -> clears.incrementAndGet()).when(entityManager).clear();
+        CountingOutputStream outputStream = new CountingOutputStream();
+        List<Integer> clearsWhenRead = new ArrayList<>();
+        List<Long> bytesWrittenWhenRead = new ArrayList<>();
+        AtomicBoolean sourceClosed = new AtomicBoolean();
+        Stream<Customer> source = customers(rows)
+                .peek(customer -> {
+                    clearsWhenRead.add(clears.get());
+                    bytesWrittenWhenRead.add(outputStream.bytes);
+                })
+                .onClose(() -> sourceClosed.set(true));
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(source);
+
+        // When
+        exportService.exportCustomers(CustomerDataFormat.NDJSON, outputStream);
+
+        // Then
+        assertEquals(rows, outputStream.lines);
+        assertEquals(0, clearsWhenRead.get(CustomerExportService.CLEAR_INTERVAL - 1));
+        assertEquals(1, clearsWhenRead.get(CustomerExportService.CLEAR_INTERVAL));
+        assertEquals(2, clears.get());
+        assertTrue(bytesWrittenWhenRead.get(rows - 1) > 0, "Rows should reach the output before the last one is read");
+        assertTrue(outputStream.flushed);
+        assertFalse(outputStream.closed);
+        assertTrue(sourceClosed.get());
+    }
+
+    static Stream<Customer> customers(long count) {
+        LocalDateTime createdDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+        return Stream.iterate(1, id -> id + 1)
+                .limit(count)
+                .map(id -> Customer.builder()
+                        .id(id)
+                        .age(20 + id % 25)
+                        .name("Customer " + id)
+                        .email("customer" + id + "@kimbocare.com")
+                        .password("secret")
+                        .createdDate(createdDate)
+                        .createdBy(1)
+                        .build());
+    }
+
+    /**
+     * Discards the export, counting the bytes and lines written and whether it was flushed or closed.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+        private boolean flushed;
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerFieldsTest {
+
+    @Test
+    void itShouldSelectRequestedColumnsInDeclarationOrder() {
+        // Given
+        CustomerFields fields = CustomerFields.parse(" email,name ,name");
+
+        // When
+        String selectList = fields.selectList(CustomerField.ID);
+
+        // Then
+        assertEquals("id, name, email", selectList);
+        assertEquals("name, email", fields.selectList());
+    }
+
+    @Test
+    void itShouldProjectOnlyRequestedFields() {
+        // Given
+        CustomerFields fields = CustomerFields.parse("email,age,lastModified");
+        CustomerDTO customer = new CustomerDTO(1, "Fopa", "fopa@kimbocare.com", 21, null, null, 1, null, 0);
+
+        // When
+        Map<String, Object> projected = fields.project(customer);
+
+        // Then
+        assertEquals(List.of("email", "age", "lastModified"), List.copyOf(projected.keySet()));
+        assertEquals("fopa@kimbocare.com", projected.get("email"));
+        assertEquals(21, projected.get("age"));
+        assertNull(projected.get("lastModified"));
+    }
+
+    @Test
+    void itShouldRejectFieldsOutsideTheAllowList() {
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> CustomerFields.parse("id,password"));
+        assertThrows(InvalidRequestException.class, () -> CustomerFields.parse(""));
+        assertThrows(InvalidRequestException.class, () -> CustomerFields.parse("name,"));
+    }
+
+    @Test
+    void itShouldAllowEveryFieldOfTheDTO() {
+        // Given
+        String all = Arrays.stream(CustomerDTO.class.getRecordComponents())
+                .map(RecordComponent::getName)
+                .reduce((left, right) -> left + "," + right)
+                .orElseThrow();
+
+        // When
+        CustomerFields fields = CustomerFields.parse(all);
+
+        // Then
+        assertEquals(CustomerField.values().length, fields.fields().size());
+    }
+}
@@ -0,0 +1,152 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.io.exceptions.ObjectNotValidException;
+import com.mock.io.exceptions.UnauthenticatedException;
+import com.mock.io.validators.ObjectsValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerImportServiceTest {
+
+    private CustomerImportService importService;
+
+    @Mock
+    private CustomerImportDAO customerImportDAO;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        importService = new CustomerImportService(
+                customerImportDAO,
+                new ObjectsValidator<>(),
+                new ObjectMapper(),
+                () -> Optional.of(1),
+                eventPublisher
+        );
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+        ReflectionTestUtils.setField(importService, "validationThreads", 2);
+        importService.startValidationExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.stopValidationExecutor();
+    }
+
+    @Test
+    void itShouldImportCsvInChunksAndReportRejectedLines() throws IOException {
+        // Given
+        String csv = """
+                email,name,age,password
+                fopa@kimbocare.com,"Kuete, Fopa",30,secret
+                duclair@kimbocare.com,Duclair,60,secret
+                taken@kimbocare.com,Taken,25,secret
+                fopa@kimbocare.com,Again,25,secret
+                kuete@kimbocare.com,Kuete,25,"se""cret"
+                """;
+        when(customerImportDAO.importCustomers(anyList(), eq(1), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    List<StagedCustomer> staged = invocation.getArgument(0);
+                    return staged.stream()
+                            .filter(customer -> customer.request().email().startsWith("taken"))
+                            .map(StagedCustomer::line)
+                            .collect(java.util.stream.Collectors.toSet());
+                });
+
+        // When
+        CustomerImportResponse response = importService.importCustomers(CustomerDataFormat.CSV, input(csv));
+
+        // Then
+        assertEquals(2, response.imported());
+        assertEquals(3, response.failed());
+        assertEquals(List.of(3L, 4L, 5L), response.errors().stream().map(CustomerImportError::line).toList());
+        assertEquals(Set.of("Age should not be greater than 45"), response.errors().get(0).errors());
+        assertEquals(Set.of("Email [taken@kimbocare.com] is already taken"), response.errors().get(1).errors());
+        assertEquals(Set.of("Email [fopa@kimbocare.com] appears more than once in the import"),
+                response.errors().get(2).errors());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StagedCustomer>> captor = ArgumentCaptor.forClass(List.class);
+        verify(customerImportDAO, times(3)).importCustomers(captor.capture(), eq(1), any(LocalDateTime.class));
+        StagedCustomer first = captor.getAllValues().get(0).get(0);
+        assertEquals(new NewCustomerRequest("Kuete, Fopa", "fopa@kimbocare.com", 30, "secret"), first.request());
+        assertEquals("se\"cret", captor.getAllValues().get(2).get(0).request().password());
+        verify(eventPublisher, times(2)).publishEvent(new CustomerChangedEvent(null));
+    }
+
+    @Test
+    void itShouldReportMalformedNdjsonLines() throws IOException {
+        // Given
+        String ndjson = """
+                {"name":"Fopa","email":"fopa@kimbocare.com","age":30,"password":"secret"}
+                {"name":"Broken"
+
+                {"name":"","email":"invalid","age":30,"password":"secret"}
+                """;
+        when(customerImportDAO.importCustomers(anyList(), eq(1), any(LocalDateTime.class))).thenReturn(Set.of());
+
+        // When
+        CustomerImportResponse response = importService.importCustomers(CustomerDataFormat.NDJSON, input(ndjson));
+
+        // Then
+        assertEquals(1, response.imported());
+        assertEquals(2, response.errors().get(0).line());
+        assertEquals(Set.of("The line is not valid JSON"), response.errors().get(0).errors());
+        assertEquals(4, response.errors().get(1).line());
+        assertEquals(Set.of("The name should not be empty", "Email should be valid"), response.errors().get(1).errors());
+    }
+
+    @Test
+    void itShouldThrowWhenCsvHeaderIsMissingAColumn() {
+        // When & Then
+        ObjectNotValidException thrown = assertThrows(ObjectNotValidException.class,
+                () -> importService.importCustomers(CustomerDataFormat.CSV, input("name,email,age\n")));
+        assertEquals(Set.of("The CSV header should contain a [password] column"), thrown.getErrorMessages());
+        verifyNoInteractions(customerImportDAO);
+    }
+
+    @Test
+    void itShouldThrowWhenImportingWithoutAuthenticatedUser() {
+        // Given
+        CustomerImportService anonymousImport = new CustomerImportService(
+                customerImportDAO,
+                new ObjectsValidator<>(),
+                new ObjectMapper(),
+                Optional::empty,
+                eventPublisher
+        );
+
+        // When & Then
+        assertThrows(UnauthenticatedException.class, () -> anonymousImport.importCustomers(
+                CustomerDataFormat.NDJSON,
+                input("{\"name\":\"Fopa\",\"email\":\"fopa@kimbocare.com\",\"age\":30,\"password\":\"secret\"}\n")
+        ));
+        verifyNoInteractions(customerImportDAO, eventPublisher);
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+}
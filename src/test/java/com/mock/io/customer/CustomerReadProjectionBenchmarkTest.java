@@ -0,0 +1,139 @@
+package com.mock.io.customer;
+
+import com.mock.io.email.EmailService;
+import com.mock.io.user.User;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads pages of a hundred customers the way they were read before, as managed entities loaded in a read-write
+ * transaction and then mapped to {@link CustomerDTO}, and the way {@link CustomerService} reads them now, projected
+ * straight into {@link CustomerDTO} in a read-only transaction, alternating between both and counting the bytes
+ * allocated by the reading thread and the time of every read.
+ * Entities come with a dirty-checking snapshot and the unused password, so the projection is expected to allocate
+ * clearly less per page, and not to be slower.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class CustomerReadProjectionBenchmarkTest {
+
+    private static final String EMAIL_PREFIX = "projection.benchmark.";
+    private static final int CUSTOMERS = 5_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP_READS = 500;
+    private static final int MEASURED_READS = 2_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @MockBean
+    private EmailService emailService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+
+    @BeforeEach
+    void setUp() {
+        User auditor = User.builder().id(1).email("auditor@kimbocare.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(auditor, null, List.of())
+        );
+        customerRepository.saveAll(IntStream.range(0, CUSTOMERS)
+                .mapToObj(i -> Customer.builder()
+                        .name("Customer " + i)
+                        .email(EMAIL_PREFIX + i + "@kimbocare.com")
+                        .age(18 + i % 60)
+                        .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3GYAtVxlhHMr6XK5aRbn1zq")
+                        .build())
+                .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("delete from customer where email like ?", EMAIL_PREFIX + "%");
+    }
+
+    @Test
+    void itShouldAllocateLessPerPageWithTheProjection() {
+        // Given
+        Supplier<List<CustomerDTO>> entities = () -> transactionTemplate.execute(status -> entityManager
+                .createQuery("select c from Customer c order by c.id", Customer.class)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(customerDTOMapper)
+                .toList());
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        Supplier<List<CustomerDTO>> projection = () -> readOnly.execute(status ->
+                customerRepository.findFirstPageById(PageRequest.ofSize(PAGE_SIZE)));
+
+        for (int i = 0; i < WARMUP_READS; i++) {
+            assertEquals(entities.get(), projection.get());
+        }
+
+        // When
+        Reads entityReads = new Reads();
+        Reads projectionReads = new Reads();
+        for (int i = 0; i < MEASURED_READS; i++) {
+            entityReads.time(entities);
+            projectionReads.time(projection);
+        }
+
+        // Then
+        log.info("Page of {} customers: entities {} bytes and {} µs, projection {} bytes and {} µs",
+                PAGE_SIZE, entityReads.bytesPerRead(), entityReads.microsPerRead(),
+                projectionReads.bytesPerRead(), projectionReads.microsPerRead());
+        assertTrue(projectionReads.bytesPerRead() < entityReads.bytesPerRead());
+    }
+
+    private static final class Reads {
+        private long bytes;
+        private long nanos;
+        private int count;
+
+        void time(Supplier<List<CustomerDTO>> read) {
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            assertEquals(PAGE_SIZE, read.get().size());
+            nanos += System.nanoTime() - start;
+            bytes += THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            count++;
+        }
+
+        long bytesPerRead() {
+            return bytes / count;
+        }
+
+        long microsPerRead() {
+            return nanos / count / 1_000;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the time the collector spends on its own while the same customer bodies are held in the off-heap
+ * response cache and in an on-heap map, under the same allocation churn, where part of the garbage lives
+ * long enough to be promoted. Both holders are measured alternately, each built from scratch and dropped
+ * after its round, and the median of the rounds is reported, so neither one runs on a heap shaped by the other.
+ * The off-heap cache is expected to cost the collector less, the gap growing with the number of cached bodies,
+ * since its bodies are never traced nor copied.
+ */
+@Slf4j
+@Tag("benchmark")
+class CustomerResponseCacheBenchmarkTest {
+
+    private static final int CUSTOMERS = 100_000;
+    private static final int ROUNDS = 5;
+    private static final int CHURN_ALLOCATIONS = 2_000_000;
+    private static final int SURVIVORS = 50_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void itShouldReportGarbageCollectionTimeOnAndOffHeap() {
+        // Given
+        long[] offHeapTimes = new long[ROUNDS];
+        long[] onHeapTimes = new long[ROUNDS];
+
+        // When
+        for (int round = 0; round < ROUNDS; round++) {
+            offHeapTimes[round] = collectionTimeWhileHolding(this::offHeap);
+            onHeapTimes[round] = collectionTimeWhileHolding(this::onHeap);
+        }
+
+        // Then
+        log.info("GC time while holding {} customer bodies, median of {} rounds: off-heap {} ms, on-heap {} ms",
+                CUSTOMERS, ROUNDS, median(offHeapTimes), median(onHeapTimes));
+    }
+
+    private IntFunction<byte[]> offHeap(int customers) {
+        CustomerResponseCache cache = new CustomerResponseCache(
+                true,
+                DataSize.ofMegabytes(64),
+                objectMapper,
+                new SimpleMeterRegistry()
+        );
+        for (int id = 1; id <= customers; id++) {
+            cache.put(id, 0, body(id), cache.generation());
+        }
+        return id -> cache.get(id).orElseThrow().json();
+    }
+
+    private IntFunction<byte[]> onHeap(int customers) {
+        Map<Integer, byte[]> map = new ConcurrentHashMap<>();
+        for (int id = 1; id <= customers; id++) {
+            map.put(id, body(id));
+        }
+        return map::get;
+    }
+
+    private long collectionTimeWhileHolding(IntFunction<IntFunction<byte[]>> holder) {
+        IntFunction<byte[]> bodies = holder.apply(CUSTOMERS);
+        long before = collectionTime();
+
+        // a rolling window of survivors gets promoted, so that old collections also have work to do
+        byte[][] survivors = new byte[SURVIVORS][];
+        for (int i = 0; i < CHURN_ALLOCATIONS; i++) {
+            survivors[i % SURVIVORS] = new byte[256];
+        }
+        long elapsed = collectionTime() - before;
+
+        // keeps the bodies reachable until the end of the measurement
+        assertArrayEquals(body(CUSTOMERS), bodies.apply(CUSTOMERS));
+        assertNotNull(survivors[0]);
+        return elapsed;
+    }
+
+    private static long collectionTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private byte[] body(int id) {
+        try {
+            return objectMapper.writeValueAsBytes(new CustomerDTO(
+                    id,
+                    "Customer " + id,
+                    "customer" + id + "@kimbocare.com",
+                    18 + id % 27,
+                    LocalDateTime.of(2024, 2, 29, 13, 45).plusMinutes(id),
+                    null,
+                    1,
+                    null,
+                    0
+            ));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
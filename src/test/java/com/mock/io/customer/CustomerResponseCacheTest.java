@@ -0,0 +1,233 @@
+package com.mock.io.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerResponseCacheTest {
+
+    private CustomerResponseCache cache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CustomerResponseCache(
+                true,
+                DataSize.ofKilobytes(4),
+                new ObjectMapper().findAndRegisterModules(),
+                meterRegistry
+        );
+    }
+
+    @Test
+    void itShouldServeTheSerializedCustomerFromTheCache() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CustomerDTO customer = new CustomerDTO(1, "Fopa", "fopa@kimbocare.com", 22, null, null, 1, null, 3);
+
+        // When
+        CustomerResponseCache.CachedCustomer first = cache.getOrLoad(1, id -> {
+            loads.incrementAndGet();
+            return customer;
+        });
+        CustomerResponseCache.CachedCustomer second = cache.getOrLoad(1, id -> {
+            loads.incrementAndGet();
+            return customer;
+        });
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals(3, second.version());
+        assertArrayEquals(first.json(), second.json());
+        assertTrue(new String(second.json(), StandardCharsets.UTF_8).contains("\"email\":\"fopa@kimbocare.com\""));
+    }
+
+    @Test
+    void itShouldForgetCustomersOnWrites() {
+        // Given
+        cache.put(1, 0, body(1, 100), cache.generation());
+        cache.put(2, 0, body(2, 100), cache.generation());
+
+        // When
+        cache.onCustomerChanged(new CustomerChangedEvent(1));
+
+        // Then
+        assertTrue(cache.get(1).isEmpty());
+        assertTrue(cache.get(2).isPresent());
+
+        // When
+        cache.onCustomerChanged(new CustomerChangedEvent(null));
+
+        // Then
+        assertTrue(cache.get(2).isEmpty());
+    }
+
+    @Test
+    void itShouldNotCacheBodiesLoadedBeforeAWrite() {
+        // Given
+        long generation = cache.generation();
+        cache.onCustomerChanged(new CustomerChangedEvent(1));
+
+        // When
+        cache.put(1, 0, body(1, 100), generation);
+
+        // Then
+        assertTrue(cache.get(1).isEmpty());
+    }
+
+    @Test
+    void itShouldEvictTheOldestBodiesWhenFull() {
+        // Given
+        int bodies = 100;
+
+        // When
+        for (int id = 1; id <= bodies; id++) {
+            cache.put(id, 0, body(id, 200), cache.generation());
+        }
+
+        // Then
+        assertTrue(cache.get(1).isEmpty());
+        for (int id = bodies - 10; id <= bodies; id++) {
+            assertArrayEquals(body(id, 200), cache.get(id).orElseThrow().json(), "customer " + id);
+        }
+    }
+
+    @Test
+    void itShouldReturnExactBodiesAcrossWrapArounds() {
+        // Given
+        Random random = new Random(42);
+        Map<Integer, byte[]> latest = new HashMap<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            // When
+            int id = random.nextInt(50);
+            byte[] body = body(i, 1 + random.nextInt(500));
+            cache.put(id, i, body, cache.generation());
+            latest.put(id, body);
+
+            // Then
+            int readId = random.nextInt(50);
+            cache.get(readId).ifPresent(cached -> assertArrayEquals(latest.get(readId), cached.json()));
+        }
+    }
+
+    @Test
+    void itShouldCopyTheBodyOutOfTheCacheOnEveryHit() {
+        // Given
+        cache.put(1, 0, body(1, 100), cache.generation());
+        byte[] first = cache.get(1).orElseThrow().json();
+
+        // When
+        first[0] = (byte) (first[0] + 1);
+        byte[] second = cache.get(1).orElseThrow().json();
+
+        // Then
+        assertNotSame(first, second);
+        assertArrayEquals(body(1, 100), second);
+        assertEquals(2, meterRegistry.get("customer.response.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void itShouldNotCacheBodiesLargerThanAnEighthOfTheCapacity() {
+        // When
+        cache.put(1, 0, body(1, 512 - 8), cache.generation());
+        cache.put(2, 0, body(2, 512 - 7), cache.generation());
+
+        // Then
+        assertTrue(cache.get(1).isPresent());
+        assertTrue(cache.get(2).isEmpty());
+        assertEquals(1, meterRegistry.get("customer.response.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void itShouldLoadEveryTimeWhenDisabled() {
+        // Given
+        CustomerResponseCache disabled = new CustomerResponseCache(
+                false,
+                DataSize.ofKilobytes(4),
+                new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry()
+        );
+        AtomicInteger loads = new AtomicInteger();
+        CustomerDTO customer = new CustomerDTO(1, "Fopa", "fopa@kimbocare.com", 22, null, null, 1, null, 3);
+
+        // When
+        disabled.getOrLoad(1, id -> {
+            loads.incrementAndGet();
+            return customer;
+        });
+        disabled.getOrLoad(1, id -> {
+            loads.incrementAndGet();
+            return customer;
+        });
+
+        // Then
+        assertEquals(2, loads.get());
+        assertTrue(disabled.get(1).isEmpty());
+    }
+
+    @Test
+    void itShouldNeverReturnATornBodyToReadersRacingTheWriter() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger hits = new AtomicInteger();
+
+        // When
+        Future<?> writer = executor.submit(() -> {
+            Random random = new Random(42);
+            for (int i = 0; i < 200_000; i++) {
+                int id = random.nextInt(50);
+                cache.put(id, 0, body(id, 1 + random.nextInt(300)), cache.generation());
+            }
+            writing.set(false);
+        });
+        Future<?>[] readers = new Future<?>[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = executor.submit(() -> {
+                Random random = new Random();
+                while (writing.get()) {
+                    int id = random.nextInt(50);
+                    cache.get(id).ifPresent(cached -> {
+                        // a body is written whole with bytes derived from its id, so any mix shows up
+                        byte[] json = cached.json();
+                        assertArrayEquals(body(id, json.length), json, "customer " + id);
+                        hits.incrementAndGet();
+                    });
+                }
+            });
+        }
+
+        // Then
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(hits.get() > 0);
+    }
+
+    private static byte[] body(int id, int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) (id + i);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mock.io.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSearchCacheTest {
+
+    private CustomerSearchCache customerSearchCache;
+
+    @BeforeEach
+    void setUp() {
+        customerSearchCache = new CustomerSearchCache(2, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void itShouldInvalidateEveryEntryWhenACustomerChanges() {
+        // Given
+        SearchRequest request = new SearchRequest("Fopa", null, null);
+        customerSearchCache.put(request, customerSearchCache.generation(), List.of(1, 2));
+
+        // When
+        Optional<List<Integer>> beforeChange = customerSearchCache.get(request);
+        customerSearchCache.onCustomerChanged(new CustomerChangedEvent(1));
+        Optional<List<Integer>> afterChange = customerSearchCache.get(request);
+
+        // Then
+        assertEquals(Optional.of(List.of(1, 2)), beforeChange);
+        assertTrue(afterChange.isEmpty());
+    }
+
+    @Test
+    void itShouldNotCacheResultsComputedBeforeAChange() {
+        // Given
+        SearchRequest request = new SearchRequest(null, null, 22);
+        long generation = customerSearchCache.generation();
+        customerSearchCache.onCustomerChanged(new CustomerChangedEvent(null));
+
+        // When
+        customerSearchCache.put(request, generation, List.of(3));
+
+        // Then
+        assertTrue(customerSearchCache.get(request).isEmpty());
+    }
+
+    @Test
+    void itShouldEvictTheLeastRecentlyUsedEntry() {
+        // Given
+        SearchRequest first = new SearchRequest("a", null, null);
+        SearchRequest second = new SearchRequest("b", null, null);
+        SearchRequest third = new SearchRequest("c", null, null);
+        long generation = customerSearchCache.generation();
+        customerSearchCache.put(first, generation, List.of(1));
+        customerSearchCache.put(second, generation, List.of(2));
+
+        // When
+        customerSearchCache.get(first);
+        customerSearchCache.put(third, generation, List.of(3));
+
+        // Then
+        assertTrue(customerSearchCache.get(first).isPresent());
+        assertTrue(customerSearchCache.get(second).isEmpty());
+        assertTrue(customerSearchCache.get(third).isPresent());
+    }
+}
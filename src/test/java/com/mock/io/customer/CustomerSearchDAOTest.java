@@ -0,0 +1,84 @@
+package com.mock.io.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerSearchDAOTest {
+
+    private CustomerSearchDAO customerSearchDAO;
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Mock
+    private TypedQuery<Customer> query;
+    @Mock
+    private CustomerSearchIndexes searchIndexes;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        customerSearchDAO = new CustomerSearchDAO(entityManager, jdbcTemplate, searchIndexes);
+        when(entityManager.createQuery(anyString(), eq(Customer.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of());
+    }
+
+    @Test
+    void itShouldReuseTheSameQueryForSearchesOfTheSameShape() {
+        // When
+        customerSearchDAO.findAllByCriteria(new SearchRequest("Fopa", null, 22));
+        customerSearchDAO.findAllByCriteria(new SearchRequest("Kuete", null, 30));
+        customerSearchDAO.findAllByCriteria(new SearchRequest(null, "fopa@kimbocare.com", null));
+
+        // Then
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(3)).createQuery(captor.capture(), eq(Customer.class));
+        List<String> queries = captor.getAllValues();
+        assertSame(queries.get(0), queries.get(1));
+        assertEquals("select c from Customer c where c.name like :name or c.age = :age", queries.get(0));
+        assertEquals("select c from Customer c where c.email like :email", queries.get(2));
+        verify(query).setParameter("name", "%Kuete%");
+        verify(query).setParameter("age", 30);
+    }
+
+    @Test
+    void itShouldNotQueryWhenNoCriteriaIsPresent() {
+        // When
+        List<Customer> customers = customerSearchDAO.findAllByCriteria(new SearchRequest(null, null, null));
+
+        // Then
+        assertTrue(customers.isEmpty());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void itShouldSearchWithoutTrigramsUntilTheyAreAvailable() {
+        // When
+        customerSearchDAO.searchRanked("fopa", 0, 20);
+        when(searchIndexes.trigramsAvailable()).thenReturn(true);
+        customerSearchDAO.searchRanked("fopa", 0, 20);
+
+        // Then
+        verify(jdbcTemplate).query(
+                eq(CustomerSearchDAO.RANKED_SEARCH_WITHOUT_TRIGRAMS), any(MapSqlParameterSource.class), any(RowMapper.class));
+        verify(jdbcTemplate).query(
+                eq(CustomerSearchDAO.RANKED_SEARCH), any(MapSqlParameterSource.class), any(RowMapper.class));
+        assertFalse(CustomerSearchDAO.RANKED_SEARCH_WITHOUT_TRIGRAMS.contains("similarity"));
+    }
+}
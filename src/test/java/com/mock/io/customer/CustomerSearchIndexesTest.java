@@ -0,0 +1,58 @@
+package com.mock.io.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.dao.PermissionDeniedDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerSearchIndexesTest {
+
+    private CustomerSearchIndexes searchIndexes;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        searchIndexes = new CustomerSearchIndexes(jdbcTemplate);
+    }
+
+    @Test
+    void itShouldCreateTheTrigramIndexesWhenTheExtensionIsInstalled() {
+        // Given
+        when(jdbcTemplate.queryForObject(contains("pg_extension"), eq(Boolean.class))).thenReturn(true);
+
+        // When
+        searchIndexes.run(new DefaultApplicationArguments());
+
+        // Then
+        assertTrue(searchIndexes.trigramsAvailable());
+        verify(jdbcTemplate, never()).execute(contains("create extension"));
+        verify(jdbcTemplate).execute(contains("customer_name_trgm_idx"));
+        verify(jdbcTemplate).execute(contains("customer_email_trgm_idx"));
+    }
+
+    @Test
+    void itShouldStartWithoutTrigramsWhenTheExtensionCannotBeCreated() {
+        // Given
+        when(jdbcTemplate.queryForObject(contains("pg_extension"), eq(Boolean.class))).thenReturn(false);
+        doThrow(new PermissionDeniedDataAccessException("permission denied to create extension \"pg_trgm\"", null))
+                .when(jdbcTemplate).execute(contains("create extension"));
+
+        // When
+        searchIndexes.run(new DefaultApplicationArguments());
+
+        // Then
+        assertFalse(searchIndexes.trigramsAvailable());
+        verify(jdbcTemplate).execute(contains("customer_search_tsv_idx"));
+        verify(jdbcTemplate, never()).execute(contains("gin_trgm_ops"));
+    }
+}
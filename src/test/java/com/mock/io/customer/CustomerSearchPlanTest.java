@@ -0,0 +1,68 @@
+package com.mock.io.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CustomerSearchPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private CustomerSearchDAO customerSearchDAO;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                insert into customer (id, name, email, age, password, created_date, created_by)
+                select -n, 'Customer ' || n, 'customer' || n || '@kimbocare.com', 20 + n % 25, 'secret', now(), 1
+                from generate_series(1, 2000) n
+                """);
+        jdbcTemplate.update("""
+                insert into customer (id, name, email, age, password, created_date, created_by)
+                values (-5000, 'Fopa Kuete', 'duclair.fopa@kimbocare.com', 30, 'secret', now(), 1)
+                """);
+        jdbcTemplate.execute("analyze customer");
+    }
+
+    @Test
+    void itShouldServeTheSearchFromTheIndexes() {
+        // Given
+        jdbcTemplate.execute("set local enable_seqscan = off");
+
+        // When
+        String plan = String.join("\n", namedParameterJdbcTemplate.queryForList(
+                "explain " + CustomerSearchDAO.RANKED_SEARCH,
+                CustomerSearchDAO.searchParameters("fopa", 0, 20),
+                String.class
+        ));
+
+        // Then
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(plan.contains("customer_name_trgm_idx"), plan);
+        assertTrue(plan.contains("customer_email_trgm_idx"), plan);
+        assertTrue(plan.contains("customer_search_tsv_idx"), plan);
+    }
+
+    @Test
+    void itShouldRankTheClosestMatchFirst() {
+        // When
+        List<CustomerDTO> matches = customerSearchDAO.searchRanked("Fopa Kuete", 0, 5);
+
+        // Then
+        assertFalse(matches.isEmpty());
+        assertEquals(-5000, matches.get(0).id());
+    }
+}
@@ -1,12 +1,27 @@
 package com.mock.io.customer;
 
+import com.mock.io.exceptions.ConflictException;
+import com.mock.io.exceptions.InvalidRequestException;
+import com.mock.io.exceptions.NotFoundException;
 import com.mock.io.exceptions.ObjectNotValidException;
+import com.mock.io.exceptions.UnauthenticatedException;
+import com.mock.io.exceptions.VersionConflictException;
 import com.mock.io.validators.ObjectsValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -22,13 +37,26 @@ class CustomerServiceTest {
     @Mock
     private CustomerRepository customerRepository;
     @Mock
+    private CustomerWriteDAO customerWriteDAO;
+    @Mock
+    private CustomerWriteBehindBuffer writeBehindBuffer;
+    @Mock
+    private CustomerSearchDAO customerSearchDAO;
+    @Mock
+    private CustomerSearchCache customerSearchCache;
+    @Mock
     private CustomerDTOMapper customerDTOMapper;
     @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private AuditorAware<Integer> auditorAware;
+    @Mock
     private ObjectsValidator<NewCustomerRequest> validator;
 
     @BeforeEach
     void setUp() {
         openMocks(this);
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of(7));
     }
 
     @Test
@@ -41,56 +69,45 @@ class CustomerServiceTest {
                 "demoFkd$2"
         );
 
-        Customer newCustomer = Customer.builder()
-                .age(request.age())
-                .name(request.name())
-                .email(request.email())
-                .password(request.password())
-                .build();
-
-        Customer savedCustomer = Customer.builder()
-                .id(1)
-                .age(request.age())
-                .name(request.name())
-                .email(request.email())
-                .password(request.password())
-                .build();
-
-        when(customerRepository.findByEmail(request.email())).thenReturn(Optional.empty());
-        when(customerRepository.save(newCustomer))
-                .thenReturn(savedCustomer);
+        when(customerWriteDAO.insert(request, 7)).thenReturn(1);
 
         // When
         NewCustomerResponse response = customerService.createCustomer(request);
 
         // Then
         assertEquals("Customer successfully created", response.message());
-        assertNotNull(response.id());
+        assertEquals(1, response.id());
         verify(validator).validate(request);
-        verify(customerRepository, times(1)).findByEmail(request.email());
-        verify(customerRepository, times(1)).save(newCustomer);
+        verify(customerWriteDAO, times(1)).insert(request, 7);
+        verify(customerRepository, never()).findByEmail(anyString());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(1));
     }
 
     @Test
     void itShouldThrowWhenEmailAlreadyExists() {
         // Given
         NewCustomerRequest request = new NewCustomerRequest("John Doe", "john@example.com", 30, "password123");
-        Customer existingCustomer = Customer.builder()
-                .id(1)
-                .age(request.age())
-                .name(request.name())
-                .email(request.email())
-                .password(request.password())
-                .build();
 
-        when(customerRepository.findByEmail(request.email())).thenReturn(Optional.of(existingCustomer));
+        when(customerWriteDAO.insert(request, 7)).thenReturn(null);
 
         // When & Then
-        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> customerService.createCustomer(request));
+        ConflictException thrown = assertThrows(ConflictException.class, () -> customerService.createCustomer(request));
         assertTrue(thrown.getMessage().contains("Email [%s] is already taken".formatted(request.email())));
         verify(validator).validate(request);
-        verify(customerRepository, times(1)).findByEmail(request.email());
-        verify(customerRepository, never()).save(any(Customer.class));
+        verify(customerWriteDAO, times(1)).insert(request, 7);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void itShouldThrowWhenCreatingWithoutAuthenticatedUser() {
+        // Given
+        NewCustomerRequest request = new NewCustomerRequest("John Doe", "john@example.com", 30, "password123");
+
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(UnauthenticatedException.class, () -> customerService.createCustomer(request));
+        verifyNoInteractions(customerWriteDAO);
     }
 
     @Test
@@ -105,128 +122,284 @@ class CustomerServiceTest {
         // When & Then
         ObjectNotValidException thrown = assertThrows(ObjectNotValidException.class, () -> customerService.createCustomer(request));
         verify(validator).validate(request);
-        verify(customerRepository, never()).findByEmail(anyString());
-        verify(customerRepository, never()).save(any(Customer.class));
+        verifyNoInteractions(customerWriteDAO);
         assertTrue(thrown.getErrorMessages().contains("Email is invalid"));
     }
 
     @Test
-    void itShouldGetAllCustomers() {
+    void itShouldGetFirstPageOfCustomers() {
         // Given
-        Customer customer = new Customer(
-                1,
-                22,
-                "Fopa Kuete",
-                "duclair.fopa@kimbocare.com",
-                "demoFkd$2",
-                LocalDateTime.now(),
-                null,
-                1,
-                1
-        );
+        CustomerDTO first = new CustomerDTO(1, "Fopa Kuete", "fopa@kimbocare.com", 22, null, null, 1, null, 0);
+        CustomerDTO second = new CustomerDTO(2, "Duclair", "duclair@kimbocare.com", 23, null, null, 1, null, 0);
+        CustomerDTO third = new CustomerDTO(3, "Kuete", "kuete@kimbocare.com", 24, null, null, 1, null, 0);
 
-        List<Customer> customers = List.of(customer);
+        when(customerRepository.findFirstPageById(PageRequest.of(0, 3)))
+                .thenReturn(List.of(first, second, third));
 
-        CustomerDTO customerDTO = new CustomerDTO(
-                customer.getId(),
-                customer.getName(),
-                customer.getEmail(),
-                customer.getAge(),
-                customer.getCreatedDate(),
-                customer.getLastModifiedDate(),
-                customer.getCreatedBy(),
-                customer.getLastModifiedBy()
-        );
+        // When
+        CustomerPage page = customerService.getCustomersPage(null, 2, CustomerSort.ID);
+
+        // Then
+        assertEquals(List.of(first, second), page.items());
+        assertEquals(new CustomerCursor(CustomerSort.ID, null, 2).encode(), page.nextCursor());
+    }
+
+    @Test
+    void itShouldGetNextPageOfCustomersFromCursor() {
+        // Given
+        CustomerDTO last = new CustomerDTO(3, "Kuete", "kuete@kimbocare.com", 24, null, null, 1, null, 0);
+        String cursor = new CustomerCursor(CustomerSort.ID, null, 2).encode();
+
+        when(customerRepository.findPageAfterId(2, PageRequest.of(0, 3))).thenReturn(List.of(last));
+
+        // When
+        CustomerPage page = customerService.getCustomersPage(cursor, 2, CustomerSort.ID);
+
+        // Then
+        assertEquals(List.of(last), page.items());
+        assertNull(page.nextCursor());
+        verify(customerRepository, never()).findFirstPageById(any());
+    }
+
+    @Test
+    void itShouldGetPageOfRequestedFieldsWithCursorOfLastCustomer() {
+        // Given
+        CustomerFields fields = CustomerFields.parse("name");
+        CustomerDTO first = new CustomerDTO(1, "Fopa", null, null, null, null, null, null, null);
+        CustomerDTO second = new CustomerDTO(2, "Kuete", null, null, null, null, null, null, null);
+        CustomerDTO extra = new CustomerDTO(3, "Duclair", null, null, null, null, null, null, null);
+
+        when(customerSearchDAO.findPage(fields, CustomerSort.ID, null, 3)).thenReturn(List.of(first, second, extra));
+
+        // When
+        CustomerFieldsPage page = customerService.getCustomersPage(null, 2, CustomerSort.ID, fields);
+
+        // Then
+        assertEquals(List.of(Map.of("name", "Fopa"), Map.of("name", "Kuete")), page.items());
+        assertEquals(new CustomerCursor(CustomerSort.ID, null, 2).encode(), page.nextCursor());
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    void itShouldThrowWhenPageSizeIsOutOfBounds() {
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> customerService.getCustomersPage(null, 0, CustomerSort.ID));
+        assertThrows(InvalidRequestException.class,
+                () -> customerService.getCustomersPage(null, CustomerService.MAX_PAGE_SIZE + 1, CustomerSort.ID));
+        verifyNoInteractions(customerRepository);
+    }
 
-        when(customerRepository.findAll()).thenReturn(customers);
+    @Test
+    void itShouldSearchCustomersByRank() {
+        // Given
+        CustomerDTO best = new CustomerDTO(4, "Fopa Kuete", "fopa@kimbocare.com", 22, null, null, 1, null, 0);
+        CustomerDTO other = new CustomerDTO(2, "Kuete", "kuete@kimbocare.com", 24, null, null, 1, null, 0);
+        CustomerDTO extra = new CustomerDTO(7, "Fopa", "duclair@kimbocare.com", 30, null, null, 1, null, 0);
+
+        when(customerSearchDAO.searchRanked("fopa", 2, 3)).thenReturn(List.of(best, other, extra));
+
+        // When
+        CustomerSearchPage page = customerService.searchCustomers("  fopa ", 1, 2);
+
+        // Then
+        assertEquals(List.of(best, other), page.items());
+        assertEquals(1, page.page());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    void itShouldThrowWhenSearchQueryIsBlank() {
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> customerService.searchCustomers(" ", null, null));
+        verifyNoInteractions(customerSearchDAO);
+    }
+
+    @Test
+    void itShouldServeRepeatedCriteriaSearchesFromTheCache() {
+        // Given
+        SearchRequest normalised = new SearchRequest("Fopa", null, 22);
+        Customer customer = Customer.builder().id(4).age(22).name("Fopa Kuete").email("fopa@kimbocare.com").build();
+        CustomerDTO customerDTO = new CustomerDTOMapper().apply(customer);
+
+        when(customerSearchCache.get(normalised)).thenReturn(Optional.of(List.of(4)));
+        when(customerSearchDAO.findAllByIds(List.of(4))).thenReturn(List.of(customer));
         when(customerDTOMapper.apply(customer)).thenReturn(customerDTO);
 
         // When
-        List<CustomerDTO> customerDTOList = customerService.getAllCustomers();
+        List<CustomerDTO> customers = customerService.searchCustomersByCriteria(new SearchRequest(" Fopa ", " ", 22));
 
         // Then
+        assertEquals(List.of(customerDTO), customers);
+        verify(customerSearchDAO, never()).findIdsByCriteria(any());
+        verify(customerSearchCache, never()).put(any(), anyLong(), any());
+    }
+
+    @Test
+    void itShouldCacheCriteriaSearchesOnMiss() {
+        // Given
+        SearchRequest request = new SearchRequest(null, "kimbocare", null);
+
+        when(customerSearchCache.get(request)).thenReturn(Optional.empty());
+        when(customerSearchCache.generation()).thenReturn(7L);
+        when(customerSearchDAO.findIdsByCriteria(request)).thenReturn(List.of());
 
-        assertEquals(customerDTOList.size(), customers.size());
-        verify(customerRepository, times(1)).findAll();
-        verify(customerDTOMapper, times(1)).apply(customer);
+        // When
+        List<CustomerDTO> customers = customerService.searchCustomersByCriteria(request);
+
+        // Then
+        assertTrue(customers.isEmpty());
+        verify(customerSearchCache).put(request, 7L, List.of());
     }
 
     @Test
     void itShouldGetSingleCustomer() {
         // Given
         Integer customerId = 1;
-        Customer customer = new Customer(
+        CustomerDTO customerDTO = new CustomerDTO(
                 customerId,
-                22,
                 "Fopa Kuete",
                 "duclair.fopa@kimbocare.com",
-                "demoFkd$2",
+                22,
                 LocalDateTime.now(),
                 null,
                 1,
-                1
+                1,
+                0
         );
 
-        CustomerDTO customerDTO = new CustomerDTO(
-                customer.getId(),
-                customer.getName(),
-                customer.getEmail(),
-                customer.getAge(),
-                customer.getCreatedDate(),
-                customer.getLastModifiedDate(),
-                customer.getCreatedBy(),
-                customer.getLastModifiedBy()
-        );
-
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        when(customerDTOMapper.apply(customer)).thenReturn(customerDTO);
+        when(customerRepository.findDTOById(customerId)).thenReturn(Optional.of(customerDTO));
 
         // When
         CustomerDTO dto = customerService.getSingleCustomer(customerId);
 
         // Then
         assertEquals(customerDTO, dto);
-        verify(customerRepository, times(1)).findById(customerId);
-        verify(customerDTOMapper, times(1)).apply(customer);
+        verify(customerRepository, times(1)).findDTOById(customerId);
+        verify(customerRepository, never()).findById(any());
     }
 
     @Test
     void itShouldThrowWhenSingleCustomerNotFound() {
         // Given
         Integer customerId = 1;
-        when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+        when(customerRepository.findDTOById(customerId)).thenReturn(Optional.empty());
+
+        // When & Then
+        NotFoundException thrown = assertThrows(NotFoundException.class, () -> customerService.getSingleCustomer(customerId));
+        assertTrue(thrown.getMessage().contains("Customer with id [%s] not found".formatted(customerId)));
+        verify(customerRepository, times(1)).findDTOById(customerId);
+    }
+
+    @Test
+    void itShouldGetCustomerETagWithoutLoadingCustomer() {
+        // Given
+        Integer customerId = 1;
+        when(customerRepository.findVersionById(customerId)).thenReturn(Optional.of(3));
+
+        // When
+        String eTag = customerService.getCustomerETag(customerId);
+
+        // Then
+        assertEquals(CustomerETags.of(customerId, 3), eTag);
+        verify(customerRepository, never()).findDTOById(any());
+    }
+
+    @Test
+    void itShouldThrowWhenCustomerToTagNotFound() {
+        // Given
+        Integer customerId = 1;
+        when(customerRepository.findVersionById(customerId)).thenReturn(Optional.empty());
 
         // When & Then
-        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> customerService.getSingleCustomer(customerId));
+        NotFoundException thrown = assertThrows(NotFoundException.class, () -> customerService.getCustomerETag(customerId));
         assertTrue(thrown.getMessage().contains("Customer with id [%s] not found".formatted(customerId)));
-        verify(customerRepository, times(1)).findById(customerId);
-        verify(customerDTOMapper, never()).apply(any(Customer.class));
     }
 
     @Test
     void itShouldDeleteCustomer() {
         // Given
         Integer customerId = 1;
-        when(customerRepository.existsById(customerId)).thenReturn(true);
+        when(customerWriteDAO.delete(customerId, 7)).thenReturn(true);
 
         // When
         customerService.deleteCustomer(customerId);
 
         // Then
-        verify(customerRepository, times(1)).deleteById(customerId);
+        verify(customerWriteDAO, times(1)).delete(customerId, 7);
+        verify(customerRepository, never()).existsById(any());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(customerId));
     }
 
     @Test
     void itShouldThrowWhenCustomerToDeleteNotFound() {
         // Given
         Integer customerId = 1;
-        when(customerRepository.existsById(customerId)).thenReturn(false);
+        when(customerWriteDAO.delete(customerId, 7)).thenReturn(false);
 
         // When & Then
-        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> customerService.deleteCustomer(customerId));
+        NotFoundException thrown = assertThrows(NotFoundException.class, () -> customerService.deleteCustomer(customerId));
         assertTrue(thrown.getMessage().contains("Customer with id [%s] not found".formatted(customerId)));
 
-        verify(customerRepository, never()).deleteById(anyInt());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void itShouldGetCustomersInRequestOrderWithNotFoundMarkers() {
+        // Given
+        CustomerDTO first = new CustomerDTO(1, "Fopa", "fopa@kimbocare.com", 22, null, null, 1, null, 0);
+        CustomerDTO third = new CustomerDTO(3, "Kuete", "kuete@kimbocare.com", 30, null, null, 1, null, 2);
+
+        when(customerSearchDAO.findDTOsByIds(new LinkedHashSet<>(List.of(3, 2, 1))))
+                .thenReturn(List.of(first, third));
+        when(writeBehindBuffer.pending(anyInt())).thenReturn(Optional.empty());
+
+        // When
+        CustomerBatchResponse response = customerService.getCustomers(List.of(3, 2, 1, 3));
+
+        // Then
+        assertEquals(3, response.found());
+        assertEquals(1, response.notFound());
+        assertEquals(
+                List.of(
+                        CustomerBatchResult.found(3, third),
+                        CustomerBatchResult.notFound(2),
+                        CustomerBatchResult.found(1, first),
+                        CustomerBatchResult.found(3, third)
+                ),
+                response.results()
+        );
+    }
+
+    @Test
+    void itShouldThrowWhenBatchIsEmptyOrTooLarge() {
+        // Given
+        List<Integer> tooMany = Collections.nCopies(CustomerService.MAX_BATCH_SIZE + 1, 1);
+
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> customerService.getCustomers(List.of()));
+        assertThrows(InvalidRequestException.class, () -> customerService.deleteCustomers(tooMany));
+        assertThrows(InvalidRequestException.class, () -> customerService.deleteCustomers(Arrays.asList(1, null)));
+        verifyNoInteractions(customerSearchDAO, customerWriteDAO);
+    }
+
+    @Test
+    void itShouldDeleteCustomersWithOneStatement() {
+        // Given
+        when(customerWriteDAO.deleteAll(new LinkedHashSet<>(List.of(1, 2, 3)), 7)).thenReturn(List.of(1, 3));
+
+        // When
+        CustomerBatchResponse response = customerService.deleteCustomers(List.of(1, 2, 3));
+
+        // Then
+        assertEquals(2, response.found());
+        assertEquals(
+                List.of(CustomerBatchResult.found(1, null), CustomerBatchResult.notFound(2), CustomerBatchResult.found(3, null)),
+                response.results()
+        );
+        verify(writeBehindBuffer).take(2);
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(1));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(3));
+        verify(eventPublisher, never()).publishEvent(new CustomerChangedEvent(2));
     }
 
     @Test
@@ -240,25 +413,16 @@ class CustomerServiceTest {
                 "demoFkd$2"
         );
 
-        Customer customer = Customer
-                .builder()
-                .id(1)
-                .age(request.age())
-                .name("Duclair")
-                .email("fopaduclair2000@gmail.com")
-                .password(request.password())
-                .build();
-
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(customerWriteDAO.update(customerId, request, null, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(0, 1));
 
         // When
         customerService.updateCustomer(customerId, request);
 
         // Then
-        assertEquals(request.email(), customer.getEmail());
-        assertEquals(request.name(), customer.getName());
-        assertEquals(request.age(), customer.getAge());
-        verify(customerRepository, times(1)).save(customer);
+        verify(customerWriteDAO, times(1)).update(customerId, request, null, 7);
+        verify(customerRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(customerId));
     }
 
     @Test
@@ -272,13 +436,13 @@ class CustomerServiceTest {
                 "demoFkd$2"
         );
 
-        when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+        when(customerWriteDAO.update(customerId, request, null, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(null, null));
 
         // When & Then
-        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> customerService.updateCustomer(customerId, request));
+        NotFoundException thrown = assertThrows(NotFoundException.class, () -> customerService.updateCustomer(customerId, request));
         assertTrue(thrown.getMessage().contains("Customer with id [%s] not found".formatted(customerId)));
-        verify(customerRepository, times(1)).findById(customerId);
-        verify(customerRepository, never()).save(any(Customer.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -292,21 +456,192 @@ class CustomerServiceTest {
                 "demoFkd$2"
         );
 
-        Customer customer = Customer
-                .builder()
-                .id(1)
-                .age(request.age())
-                .name(request.name())
-                .email(request.email())
-                .password(request.password())
-                .build();
+        when(customerWriteDAO.update(customerId, request, null, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(0, null));
 
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        // When & Then
+        InvalidRequestException thrown = assertThrows(InvalidRequestException.class, () -> customerService.updateCustomer(customerId, request));
+        assertTrue(thrown.getMessage().contains("No changes found"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void itShouldPatchCustomerAtExpectedVersion() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, null, 30, null);
+
+        when(customerWriteDAO.update(customerId, request, 3, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(3, 4));
+
+        // When
+        Integer version = customerService.patchCustomer(customerId, request, 3);
+
+        // Then
+        assertEquals(4, version);
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(customerId));
+    }
+
+    @Test
+    void itShouldReturnCurrentVersionWhenPatchChangesNothing() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, null, 30, null);
+
+        when(customerWriteDAO.update(customerId, request, 3, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(3, null));
+
+        // When
+        Integer version = customerService.patchCustomer(customerId, request, 3);
+
+        // Then
+        assertEquals(3, version);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void itShouldThrowConflictWhenUpdateTakesAnotherCustomersEmail() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, "ivan@kimbocare.com", null, null);
+
+        when(customerWriteDAO.update(customerId, request, null, 7))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint \"customer_email_unique\""));
 
         // When & Then
-        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> customerService.updateCustomer(customerId, request));
+        ConflictException updateThrown = assertThrows(ConflictException.class,
+                () -> customerService.updateCustomer(customerId, request));
+        ConflictException patchThrown = assertThrows(ConflictException.class,
+                () -> customerService.patchCustomer(customerId, request, null));
+        assertEquals("Email [ivan@kimbocare.com] is already taken", updateThrown.getMessage());
+        assertEquals("Email [ivan@kimbocare.com] is already taken", patchThrown.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void itShouldThrowConflictWithCurrentVersionWhenPatchingStaleVersion() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, null, 30, null);
+
+        when(customerWriteDAO.update(customerId, request, 3, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(5, null));
+
+        // When & Then
+        VersionConflictException thrown = assertThrows(VersionConflictException.class,
+                () -> customerService.patchCustomer(customerId, request, 3));
+        assertEquals(5, thrown.getCurrentVersion());
+        assertEquals(CustomerETags.of(customerId, 5), thrown.getCurrentETag());
+        assertEquals("Customer [1] is at version 5", thrown.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void itShouldBufferUpdateInWriteBehindMode() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, null, 30, null);
+        CustomerDTO customer = new CustomerDTO(customerId, "Fopa Kuete", "fopa@kimbocare.com", 22, null, null, 1, null, 0);
+
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(customerRepository.findDTOById(customerId)).thenReturn(Optional.of(customer));
+        when(writeBehindBuffer.offer(customerId, request, 7)).thenReturn(true);
+
+        // When
+        boolean written = customerService.updateCustomer(customerId, request);
+
+        // Then
+        assertFalse(written);
+        verifyNoInteractions(customerWriteDAO);
+    }
+
+    @Test
+    void itShouldThrowWhenBufferedUpdateChangesNothing() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, null, 30, null);
+        CustomerDTO customer = new CustomerDTO(customerId, "Fopa Kuete", "fopa@kimbocare.com", 22, null, null, 1, null, 0);
+
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(customerRepository.findDTOById(customerId)).thenReturn(Optional.of(customer));
+        when(writeBehindBuffer.pending(customerId))
+                .thenReturn(Optional.of(new BufferedCustomerUpdate(customerId, null, null, 30, 7)));
+
+        // When & Then
+        InvalidRequestException thrown = assertThrows(InvalidRequestException.class, () -> customerService.updateCustomer(customerId, request));
         assertTrue(thrown.getMessage().contains("No changes found"));
-        verify(customerRepository, times(1)).findById(customerId);
-        verify(customerRepository, never()).save(any(Customer.class));
+        verify(writeBehindBuffer, never()).offer(any(), any(), any());
+    }
+
+    @Test
+    void itShouldRejectBufferedUpdateTakingAnotherCustomersEmail() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest(null, "taken@kimbocare.com", null, null);
+        CustomerDTO customer = new CustomerDTO(customerId, "Fopa Kuete", "fopa@kimbocare.com", 22, null, null, 1, null, 0);
+
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(customerRepository.findDTOById(customerId)).thenReturn(Optional.of(customer));
+        when(customerRepository.existsByEmailAndIdNot("taken@kimbocare.com", customerId)).thenReturn(true);
+
+        // When & Then
+        ConflictException thrown = assertThrows(ConflictException.class, () -> customerService.updateCustomer(customerId, request));
+        assertTrue(thrown.getMessage().contains("Email [taken@kimbocare.com] is already taken"));
+        verify(writeBehindBuffer, never()).offer(any(), any(), any());
+    }
+
+    @Test
+    void itShouldWriteBufferedUpdateAlongWithPatchAtLastServedVersion() {
+        // Given
+        Integer customerId = 1;
+        NewCustomerRequest request = new NewCustomerRequest("Kuete", null, null, null);
+        BufferedCustomerUpdate buffered = new BufferedCustomerUpdate(customerId, null, null, 30, 7);
+
+        when(writeBehindBuffer.take(customerId)).thenReturn(Optional.of(buffered));
+        when(customerWriteDAO.update(customerId, new NewCustomerRequest("Kuete", null, 30, null), 3, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(3, 4));
+
+        // When
+        Integer version = customerService.patchCustomer(customerId, request, 3);
+
+        // Then
+        assertEquals(4, version);
+        verify(writeBehindBuffer).restoreOnRollback(buffered);
+        verify(customerWriteDAO, never()).updateAll(any());
+        verify(eventPublisher, times(1)).publishEvent(new CustomerChangedEvent(customerId));
+    }
+
+    @Test
+    void itShouldKeepBufferedUpdateWhenPatchFollowingItConflicts() {
+        // Given
+        Integer customerId = 1;
+        CustomerDTO customer = new CustomerDTO(customerId, "Fopa Kuete", "fopa@kimbocare.com", 22, null, null, 1, null, 3);
+        CustomerWriteBehindBuffer buffer = new CustomerWriteBehindBuffer(
+                true, Duration.ofHours(1), 1000, 4, 3, Duration.ofSeconds(1),
+                customerWriteDAO, mock(TransactionTemplate.class), eventPublisher, new SimpleMeterRegistry()
+        );
+        CustomerService service = new CustomerService(customerRepository, customerWriteDAO, buffer, customerSearchDAO,
+                customerSearchCache, customerDTOMapper, eventPublisher, auditorAware, validator);
+
+        when(customerRepository.findDTOById(customerId)).thenReturn(Optional.of(customer));
+        when(customerWriteDAO.update(customerId, new NewCustomerRequest(null, null, 30, null), 3, 7))
+                .thenReturn(new CustomerWriteDAO.UpdateResult(5, null));
+        assertFalse(service.updateCustomer(customerId, new NewCustomerRequest(null, null, 25, null)));
+
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(VersionConflictException.class,
+                    () -> service.patchCustomer(customerId, new NewCustomerRequest(null, null, 30, null), 3));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK
+            );
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        assertEquals(Optional.of(new BufferedCustomerUpdate(customerId, null, null, 25, 7)), buffer.pending(customerId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package com.mock.io.customer;
+
+import com.mock.io.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerStatisticsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 2, 29);
+
+    private CustomerStatistics customerStatistics;
+
+    @Mock
+    private CustomerStatisticsDAO statisticsDAO;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        Clock clock = Clock.fixed(TODAY.atTime(13, 45).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        customerStatistics = new CustomerStatistics(Duration.ofHours(1), statisticsDAO, clock);
+    }
+
+    @Test
+    void itShouldAnswerFromTheSeededCounts() {
+        // Given
+        Map<Integer, Long> byAge = new HashMap<>();
+        byAge.put(25, 3L);
+        byAge.put(40, 1L);
+        byAge.put(null, 2L);
+        when(statisticsDAO.countByAgeAndCreationDay()).thenReturn(new CustomerStatisticsDAO.CustomerCounts(
+                byAge,
+                Map.of(TODAY.minusDays(40), 1L, TODAY.minusDays(1), 2L, TODAY, 3L)
+        ));
+
+        // When
+        customerStatistics.reseed();
+        CustomerStatisticsResponse statistics = customerStatistics.getStatistics(null, null);
+
+        // Then
+        assertEquals(6, statistics.total());
+        assertEquals(2, statistics.unknownAge());
+        assertEquals(List.of(
+                new CustomerStatisticsResponse.AgeCount(25, 3),
+                new CustomerStatisticsResponse.AgeCount(40, 1)
+        ), statistics.ages());
+        assertEquals(TODAY.minusDays(29), statistics.from());
+        assertEquals(TODAY, statistics.to());
+        assertEquals(List.of(
+                new CustomerStatisticsResponse.DayCount(TODAY.minusDays(1), 2),
+                new CustomerStatisticsResponse.DayCount(TODAY, 3)
+        ), statistics.created());
+        assertEquals(TODAY.atTime(13, 45), statistics.seededAt());
+    }
+
+    @Test
+    void itShouldApplyRecordedChangesWithoutQueryingAgain() {
+        // Given
+        when(statisticsDAO.countByAgeAndCreationDay()).thenReturn(new CustomerStatisticsDAO.CustomerCounts(
+                Map.of(30, 2L),
+                Map.of(TODAY.minusDays(3), 2L)
+        ));
+        customerStatistics.reseed();
+
+        // When
+        customerStatistics.record(new CustomerStatistics.Changes()
+                .created(20, TODAY)
+                .created(200, TODAY)
+                .deleted(30, TODAY.minusDays(3))
+                .ageChanged(30, 31));
+        CustomerStatisticsResponse statistics = customerStatistics.getStatistics(TODAY.minusDays(3), TODAY);
+
+        // Then
+        assertEquals(3, statistics.total());
+        assertEquals(1, statistics.unknownAge());
+        assertEquals(List.of(
+                new CustomerStatisticsResponse.AgeCount(20, 1),
+                new CustomerStatisticsResponse.AgeCount(31, 1)
+        ), statistics.ages());
+        assertEquals(List.of(
+                new CustomerStatisticsResponse.DayCount(TODAY.minusDays(3), 1),
+                new CustomerStatisticsResponse.DayCount(TODAY, 2)
+        ), statistics.created());
+        verify(statisticsDAO, times(1)).countByAgeAndCreationDay();
+    }
+
+    @Test
+    void itShouldKeepChangesRecordedWhileReseeding() {
+        // Given
+        when(statisticsDAO.countByAgeAndCreationDay()).thenAnswer(invocation -> {
+            customerStatistics.record(new CustomerStatistics.Changes().created(25, TODAY));
+            return new CustomerStatisticsDAO.CustomerCounts(Map.of(30, 1L), Map.of(TODAY, 1L));
+        });
+
+        // When
+        customerStatistics.reseed();
+        CustomerStatisticsResponse statistics = customerStatistics.getStatistics(TODAY, TODAY);
+
+        // Then
+        assertEquals(2, statistics.total());
+        assertEquals(List.of(new CustomerStatisticsResponse.DayCount(TODAY, 2)), statistics.created());
+    }
+
+    @Test
+    void itShouldRejectAReversedRange() {
+        // Given
+        when(statisticsDAO.countByAgeAndCreationDay())
+                .thenReturn(new CustomerStatisticsDAO.CustomerCounts(Map.of(), Map.of()));
+        customerStatistics.reseed();
+
+        // When & Then
+        assertThrows(InvalidRequestException.class,
+                () -> customerStatistics.getStatistics(TODAY, TODAY.minusDays(1)));
+        verify(statisticsDAO, times(1)).countByAgeAndCreationDay();
+    }
+}
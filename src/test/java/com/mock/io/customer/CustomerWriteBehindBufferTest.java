@@ -0,0 +1,333 @@
+package com.mock.io.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CustomerWriteBehindBufferTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private CustomerWriteBehindBuffer buffer;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private CustomerWriteDAO customerWriteDAO;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(clock.millis()).thenReturn(NOW);
+        when(customerWriteDAO.updateAll(anyList())).thenAnswer(invocation ->
+                invocation.<List<BufferedCustomerUpdate>>getArgument(0).stream()
+                        .map(BufferedCustomerUpdate::id)
+                        .toList());
+
+        buffer = new CustomerWriteBehindBuffer(
+                true,
+                Duration.ofHours(1),
+                1000,
+                4,
+                3,
+                Duration.ofSeconds(1),
+                customerWriteDAO,
+                transactionTemplate,
+                eventPublisher,
+                meterRegistry,
+                clock
+        );
+        buffer.startFlushing();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.stopFlushing();
+    }
+
+    @Test
+    void itShouldCoalesceUpdatesOfTheSameCustomer() {
+        // Given
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, 20, null), 7);
+        buffer.offer(1, new NewCustomerRequest(null, "fopa@kimbocare.com", 21, null), 8);
+        buffer.offer(2, new NewCustomerRequest("Kuete", null, null, null), 7);
+
+        // When
+        buffer.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BufferedCustomerUpdate>> batch = ArgumentCaptor.forClass(List.class);
+        verify(customerWriteDAO, times(1)).updateAll(batch.capture());
+        assertEquals(
+                List.of(
+                        new BufferedCustomerUpdate(1, "Fopa", "fopa@kimbocare.com", 21, 8),
+                        new BufferedCustomerUpdate(2, "Kuete", null, null, 7)
+                ),
+                batch.getValue().stream().sorted(Comparator.comparing(BufferedCustomerUpdate::id)).toList()
+        );
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(1));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(2));
+        assertTrue(buffer.pending(1).isEmpty());
+    }
+
+    @Test
+    void itShouldExposeBufferedStateToReaders() {
+        // Given
+        CustomerDTO stored = new CustomerDTO(1, "Fopa", "fopa@kimbocare.com", 20, null, null, 1, null, 3);
+
+        // When
+        buffer.offer(1, new NewCustomerRequest(null, null, 25, null), 7);
+
+        // Then
+        CustomerDTO seen = buffer.pending(1).orElseThrow().applyTo(stored);
+        assertEquals(25, seen.age());
+        assertEquals("Fopa", seen.name());
+        assertEquals(3, seen.version());
+        verifyNoInteractions(customerWriteDAO);
+    }
+
+    @Test
+    void itShouldRetryFailedBatchOneByOneAndKeepFailedUpdatesBuffered() {
+        // Given
+        BufferedCustomerUpdate valid = new BufferedCustomerUpdate(1, "Fopa", null, null, 7);
+        BufferedCustomerUpdate invalid = new BufferedCustomerUpdate(2, null, "taken@kimbocare.com", null, 7);
+        when(customerWriteDAO.updateAll(argThat(updates -> updates.size() > 1 || updates.contains(invalid))))
+                .thenThrow(new IllegalStateException("duplicate key"));
+
+        buffer.offer(1, valid.toRequest(), 7);
+        buffer.offer(2, invalid.toRequest(), 7);
+
+        // When
+        buffer.flush();
+
+        // Then
+        verify(customerWriteDAO).updateAll(List.of(valid));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(1));
+        verify(eventPublisher, never()).publishEvent(new CustomerChangedEvent(2));
+        assertTrue(buffer.pending(1).isEmpty());
+        assertEquals(Optional.of(invalid), buffer.pending(2));
+        verify(customerWriteDAO, never()).deadLetter(any(), anyInt(), any());
+    }
+
+    @Test
+    void itShouldBackOffBeforeRetryingAndDeadLetterAfterTheLastAttempt() {
+        // Given
+        BufferedCustomerUpdate invalid = new BufferedCustomerUpdate(2, null, "taken@kimbocare.com", null, 7);
+        when(customerWriteDAO.updateAll(anyList())).thenThrow(new IllegalStateException("duplicate key"));
+        buffer.offer(2, invalid.toRequest(), 7);
+        buffer.flush();
+
+        // When & Then
+        when(clock.millis()).thenReturn(NOW + 999);
+        buffer.flush();
+        verify(customerWriteDAO, times(1)).updateAll(anyList());
+
+        when(clock.millis()).thenReturn(NOW + 1_000);
+        buffer.flush();
+        verify(customerWriteDAO, times(2)).updateAll(anyList());
+        assertEquals(Optional.of(invalid), buffer.pending(2));
+
+        // the second retry waits twice as long
+        when(clock.millis()).thenReturn(NOW + 2_999);
+        buffer.flush();
+        verify(customerWriteDAO, times(2)).updateAll(anyList());
+
+        when(clock.millis()).thenReturn(NOW + 3_000);
+        buffer.flush();
+        verify(customerWriteDAO).deadLetter(invalid, 3, "duplicate key");
+        assertTrue(buffer.pending(2).isEmpty());
+        assertEquals(1, meterRegistry.get("customer.write.behind.dead.letters").counter().count());
+    }
+
+    @Test
+    void itShouldMergeUpdatesOfferedWhileARetryIsPending() {
+        // Given
+        when(customerWriteDAO.updateAll(anyList()))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(List.of(1));
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, 20, null), 7);
+        buffer.flush();
+
+        // When
+        buffer.offer(1, new NewCustomerRequest(null, null, 21, null), 8);
+        when(clock.millis()).thenReturn(NOW + 1_000);
+        buffer.flush();
+
+        // Then
+        verify(customerWriteDAO).updateAll(List.of(new BufferedCustomerUpdate(1, "Fopa", null, 21, 8)));
+        assertTrue(buffer.pending(1).isEmpty());
+    }
+
+    @Test
+    void itShouldDeadLetterWhatFailsOnShutdown() throws InterruptedException {
+        // Given
+        BufferedCustomerUpdate invalid = new BufferedCustomerUpdate(2, null, "taken@kimbocare.com", null, 7);
+        when(customerWriteDAO.updateAll(anyList())).thenThrow(new IllegalStateException("duplicate key"));
+        buffer.offer(2, invalid.toRequest(), 7);
+
+        // When
+        buffer.stopFlushing();
+
+        // Then
+        verify(customerWriteDAO).deadLetter(invalid, 1, "duplicate key");
+    }
+
+    @Test
+    void itShouldFlushOnShutdownAndRefuseLaterUpdates() throws InterruptedException {
+        // Given
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, null, null), 7);
+
+        // When
+        buffer.stopFlushing();
+
+        // Then
+        verify(customerWriteDAO).updateAll(List.of(new BufferedCustomerUpdate(1, "Fopa", null, null, 7)));
+        assertFalse(buffer.offer(1, new NewCustomerRequest("Kuete", null, null, null), 7));
+    }
+
+    @Test
+    void itShouldHandOverBufferedUpdateToDirectWrites() {
+        // Given
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, null, null), 7);
+
+        // When
+        Optional<BufferedCustomerUpdate> taken = buffer.take(1);
+        buffer.flush();
+
+        // Then
+        assertEquals(Optional.of(new BufferedCustomerUpdate(1, "Fopa", null, null, 7)), taken);
+        verifyNoInteractions(customerWriteDAO);
+    }
+
+    @Test
+    void itShouldWaitForTheFlushOfACustomerBeforeHandingItOver() throws Exception {
+        // Given
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerWriteDAO.updateAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(1);
+        });
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, null, null), 7);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<?> flush = executor.submit(buffer::flush);
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // When
+            Future<Optional<BufferedCustomerUpdate>> taken = executor.submit(() -> buffer.take(1));
+
+            // Then
+            assertThrows(TimeoutException.class, () -> taken.get(200, TimeUnit.MILLISECONDS));
+            assertTrue(buffer.take(2).isEmpty(), "Customers that are not being flushed are not held up");
+            release.countDown();
+            flush.get(5, TimeUnit.SECONDS);
+            assertEquals(Optional.empty(), taken.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void itShouldHandOverAnUpdateThatFailedDuringTheFlushItWaitedFor() throws Exception {
+        // Given
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerWriteDAO.updateAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            throw new IllegalStateException("connection reset");
+        });
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, null, null), 7);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            executor.submit(buffer::flush);
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            Future<Optional<BufferedCustomerUpdate>> taken = executor.submit(() -> buffer.take(1));
+
+            // When
+            release.countDown();
+
+            // Then
+            assertEquals(
+                    Optional.of(new BufferedCustomerUpdate(1, "Fopa", null, null, 7)),
+                    taken.get(5, TimeUnit.SECONDS)
+            );
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void itShouldRestoreATakenUpdateOnlyIfTheTransactionDoesNotCommit() {
+        // Given
+        buffer.offer(1, new NewCustomerRequest("Fopa", null, null, null), 7);
+        buffer.offer(2, new NewCustomerRequest("Kuete", null, null, null), 7);
+
+        // When
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, 1);
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED, 2);
+
+        // Then
+        assertEquals(Optional.of(new BufferedCustomerUpdate(1, "Fopa", null, null, 7)), buffer.pending(1));
+        assertTrue(buffer.pending(2).isEmpty());
+    }
+
+    private void completeTransaction(int status, Integer id) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.take(id).ifPresent(buffer::restoreOnRollback);
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(),
+                    status
+            );
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
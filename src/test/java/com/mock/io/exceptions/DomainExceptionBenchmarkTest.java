@@ -0,0 +1,61 @@
+package com.mock.io.exceptions;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times the "customer not found" path, from the throw to the rendering of the message, with an exception
+ * capturing its stack trace and formatting its message eagerly, as before, and with a stackless domain exception.
+ * Each variant is timed over many short batches and keeps its fastest one, which filters out collections
+ * and compilation. Filling in the stack trace dominates the cost of a throw, so the stackless exception
+ * is expected to cost less than half as much.
+ */
+@Slf4j
+@Tag("benchmark")
+class DomainExceptionBenchmarkTest {
+
+    private static final int BATCHES = 200;
+    private static final int MISSES_PER_BATCH = 5_000;
+
+    @Test
+    void itShouldMakeTheMissPathAtLeastTwiceCheaper() {
+        // Given
+        IntFunction<RuntimeException> withStackTrace =
+                id -> new IllegalArgumentException("Customer with id [%s] not found".formatted(id));
+        IntFunction<RuntimeException> stackless =
+                id -> new NotFoundException("Customer with id [%s] not found", id);
+
+        // When
+        double withStackTraceNanos = fastestNanosPerMiss(withStackTrace);
+        double stacklessNanos = fastestNanosPerMiss(stackless);
+
+        // Then
+        log.info("Customer not found: {} ns per miss with a stack trace, {} ns stackless",
+                Math.round(withStackTraceNanos), Math.round(stacklessNanos));
+        assertTrue(stacklessNanos * 2 < withStackTraceNanos);
+    }
+
+    private static double fastestNanosPerMiss(IntFunction<RuntimeException> notFound) {
+        long fastest = Long.MAX_VALUE;
+        long rendered = 0;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long start = System.nanoTime();
+            for (int id = 0; id < MISSES_PER_BATCH; id++) {
+                try {
+                    throw notFound.apply(id);
+                } catch (RuntimeException e) {
+                    // the message is rendered into the error response
+                    rendered += e.getMessage().length();
+                }
+            }
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        assertNotEquals(0, rendered);
+        return (double) fastest / MISSES_PER_BATCH;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mock.io.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void itShouldMapDomainExceptionsToProblemDetails() {
+        // When
+        ResponseEntity<ProblemDetail> notFound =
+                handler.handleNotFoundException(new NotFoundException("Customer with id [%s] not found", 42));
+        ResponseEntity<ProblemDetail> conflict =
+                handler.handleConflictException(new ConflictException("Email [%s] is already taken", "fopa@kimbocare.com"));
+        ResponseEntity<ProblemDetail> invalid =
+                handler.handleInvalidRequestException(new InvalidRequestException("No changes found"));
+        ResponseEntity<ProblemDetail> unauthenticated = handler.handleUnauthenticatedException(
+                new UnauthenticatedException("Customers can only be created by an authenticated user"));
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        assertEquals("Customer with id [42] not found", notFound.getBody().getDetail());
+        assertEquals(404, notFound.getBody().getStatus());
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        assertEquals("Email [fopa@kimbocare.com] is already taken", conflict.getBody().getDetail());
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+        assertEquals("Bad Request", invalid.getBody().getTitle());
+        assertEquals(HttpStatus.UNAUTHORIZED, unauthenticated.getStatusCode());
+        assertEquals("Customers can only be created by an authenticated user", unauthenticated.getBody().getDetail());
+    }
+
+    @Test
+    void itShouldNotCaptureStackTraces() {
+        // When
+        DomainException exception = new NotFoundException("Customer with id [%s] not found", 42);
+        exception.addSuppressed(new IllegalStateException());
+
+        // Then
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(0, exception.getSuppressed().length);
+    }
+
+    @Test
+    void itShouldOnlyFormatTheMessageWhenItIsRead() {
+        // Given
+        AtomicInteger renderings = new AtomicInteger();
+        Object id = new Object() {
+            @Override
+            public String toString() {
+                return String.valueOf(40 + renderings.incrementAndGet());
+            }
+        };
+
+        // When
+        NotFoundException exception = new NotFoundException("Customer with id [%s] not found", id);
+
+        // Then
+        assertEquals(0, renderings.get());
+        assertEquals("Customer with id [41] not found", handler.handleNotFoundException(exception).getBody().getDetail());
+        assertEquals(1, renderings.get());
+    }
+}
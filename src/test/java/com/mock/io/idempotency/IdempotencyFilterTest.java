@@ -0,0 +1,255 @@
+package com.mock.io.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class IdempotencyFilterTest {
+
+    private static final String BODY = "{\"name\":\"Fopa\",\"email\":\"fopa@kimbocare.com\",\"age\":21}";
+
+    private IdempotencyFilter filter;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Mock
+    private IdempotencyRecordDAO recordDAO;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 64, 4, false, recordDAO, meterRegistry);
+        filter = new IdempotencyFilter(
+                true,
+                List.of("/api/v1/customers"),
+                Duration.ofSeconds(5),
+                DataSize.ofKilobytes(64),
+                store,
+                new ObjectMapper(),
+                meterRegistry
+        );
+    }
+
+    @Test
+    void itShouldReplayTheFirstResponseWithoutRunningAgain() throws Exception {
+        // Given
+        FilterChain chain = created(null);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(post("key-1", BODY), first, chain);
+        filter.doFilter(post("key-1", BODY), retry, chain);
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("/customers/1", retry.getHeader("Location"));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED));
+    }
+
+    @Test
+    void itShouldRejectAKeyReusedWithAnotherBodyByTheSameUser() throws Exception {
+        // Given
+        FilterChain chain = created(null);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(post("key-1", BODY, "fopa"), new MockHttpServletResponse(), chain);
+        filter.doFilter(post("key-1", BODY.replace("21", "22"), "fopa"), retry, chain);
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(422, retry.getStatus());
+    }
+
+    @Test
+    void itShouldNotReplayTheResponseOfAnotherUser() throws Exception {
+        // Given
+        FilterChain chain = created(null);
+        MockHttpServletResponse other = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(post("key-1", BODY, "fopa"), new MockHttpServletResponse(), chain);
+        filter.doFilter(post("key-1", BODY, "ivan"), other, chain);
+
+        // Then
+        assertEquals(2, executions.get());
+        assertEquals("/customers/2", other.getHeader("Location"));
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED));
+    }
+
+    @Test
+    void itShouldRunAnonymousRequestsSharingAKeyWithAnotherBodyAsNewRequests() throws Exception {
+        // Given
+        FilterChain chain = created(null);
+        String otherBody = BODY.replace("fopa", "ivan");
+        MockHttpServletResponse other = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(post("key-1", BODY), new MockHttpServletResponse(), chain);
+        filter.doFilter(post("key-1", otherBody), other, chain);
+
+        // Then
+        assertEquals(2, executions.get());
+        assertEquals(201, other.getStatus());
+        assertEquals(otherBody, other.getContentAsString());
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED));
+    }
+
+    @Test
+    void itShouldRunAgainAfterAServerError() throws Exception {
+        // Given
+        FilterChain failing = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(503);
+        };
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(post("key-1", BODY), new MockHttpServletResponse(), failing);
+        filter.doFilter(post("key-1", BODY), retry, created(null));
+
+        // Then
+        assertEquals(2, executions.get());
+        assertEquals(201, retry.getStatus());
+    }
+
+    @Test
+    void itShouldMakeConcurrentDuplicatesWaitForTheFirstResponse() throws Exception {
+        // Given
+        CountDownLatch running = new CountDownLatch(1);
+        FilterChain chain = created(running);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+
+        // When
+        Future<?> original = executor.submit(() -> {
+            filter.doFilter(post("key-1", BODY), first, chain);
+            return null;
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        List<MockHttpServletResponse> duplicates = List.of(
+                new MockHttpServletResponse(),
+                new MockHttpServletResponse(),
+                new MockHttpServletResponse()
+        );
+        List<Future<?>> waiting = duplicates.stream()
+                .<Future<?>>map(duplicate -> executor.submit(() -> {
+                    filter.doFilter(post("key-1", BODY), duplicate, chain);
+                    return null;
+                }))
+                .toList();
+        original.get(5, TimeUnit.SECONDS);
+        for (Future<?> duplicate : waiting) {
+            duplicate.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(1, executions.get());
+        for (MockHttpServletResponse duplicate : duplicates) {
+            assertEquals(201, duplicate.getStatus());
+            assertEquals(first.getContentAsString(), duplicate.getContentAsString());
+        }
+    }
+
+    @Test
+    void itShouldLeaveRequestsWithoutAKeyAlone() throws Exception {
+        // Given
+        FilterChain chain = created(null);
+
+        // When
+        filter.doFilter(post(null, BODY), new MockHttpServletResponse(), chain);
+        filter.doFilter(post(null, BODY), new MockHttpServletResponse(), chain);
+
+        // Then
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void itShouldLeaveOtherPathsAlone() throws Exception {
+        // Given
+        FilterChain chain = created(null);
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/v1/api/v1/users/bulk");
+        first.setContextPath("/api/v1");
+        first.setServletPath("/api/v1/users/bulk");
+        first.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "key-1");
+        first.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletRequest retry = new MockHttpServletRequest("POST", "/api/v1/api/v1/users/bulk");
+        retry.setContextPath("/api/v1");
+        retry.setServletPath("/api/v1/users/bulk");
+        retry.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "key-1");
+        retry.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        filter.doFilter(first, new MockHttpServletResponse(), chain);
+        filter.doFilter(retry, new MockHttpServletResponse(), chain);
+
+        // Then
+        assertEquals(2, executions.get());
+    }
+
+    private static MockHttpServletRequest post(String key, String body) {
+        return post(key, body, null);
+    }
+
+    // the context path is /api/v1 and the controller is mapped to api/v1/customers, as in the application
+    private static MockHttpServletRequest post(String key, String body, String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/api/v1/customers");
+        request.setContextPath("/api/v1");
+        request.setServletPath("/api/v1/customers");
+        if (user != null) {
+            request.setUserPrincipal(() -> user);
+        }
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+        }
+        return request;
+    }
+
+    // echoes the request body, after waiting for a moment once running is signalled
+    private FilterChain created(CountDownLatch running) {
+        return (request, response) -> {
+            int execution = executions.incrementAndGet();
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (running != null) {
+                running.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(201);
+            httpResponse.setHeader("Location", "/customers/" + execution);
+            httpResponse.setContentType("application/json");
+            httpResponse.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package com.mock.io.persistence;
+
+import com.mock.io.course.Course;
+import com.mock.io.customer.Customer;
+import com.mock.io.email.EmailService;
+import com.mock.io.lecture.Lecture;
+import com.mock.io.section.Section;
+import com.mock.io.user.Token;
+import com.mock.io.user.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Persists 100k entities of every kind with pooled ids, customers, users with their tokens, and courses with
+ * their sections and lectures, interleaved as an application would, flushing and clearing the session regularly,
+ * and reports the insert throughput. The inserts are rolled back at the end, only the sequences keep moving.
+ * Each sequence is expected to be called once per block of ids, and the inserts of a flush to go out as
+ * JDBC batches, so the statements prepared are expected to be a small fraction of the entities persisted.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MixedEntityInsertBenchmarkTest {
+
+    // every group persists one entity of each of these kinds but sections and lectures, of which it persists two
+    private static final List<String> SEQUENCES = List.of(
+            "customer_id_sequence",
+            "user_id_sequence",
+            "token_id_sequence",
+            "course_id_sequence",
+            "section_id_sequence",
+            "lecture_id_sequence"
+    );
+    private static final int GROUPS = 12_500;
+    private static final int ENTITIES = GROUPS * 8;
+    private static final int FLUSH_INTERVAL = 50;
+
+    @MockBean
+    private EmailService emailService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Value("${application.persistence.sequence-block-size:50}")
+    private int blockSize;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User auditor = User.builder().id(1).email("auditor@kimbocare.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(auditor, null, List.of())
+        );
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void itShouldCallEverySequenceOncePerBlockAndBatchTheInserts() {
+        // Given
+        Map<String, Long> callsBefore = sequenceCalls();
+
+        // When
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int group = 0; group < GROUPS; group++) {
+                persistGroup(group);
+                if ((group + 1) % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+        long elapsed = System.nanoTime() - start;
+
+        // Then
+        Map<String, Long> callsAfter = sequenceCalls();
+        long prepared = statistics.getPrepareStatementCount();
+        log.info("{} entities in {} ms, {} entities/s, {} statements prepared, sequence calls {}",
+                ENTITIES, elapsed / 1_000_000, Math.round(ENTITIES * 1e9 / elapsed), prepared, callsAfter);
+
+        assertEquals(ENTITIES, statistics.getEntityInsertCount());
+        for (String sequence : SEQUENCES) {
+            long perGroup = sequence.startsWith("section") || sequence.startsWith("lecture") ? 2 : 1;
+            long blocks = (GROUPS * perGroup + blockSize - 1) / blockSize;
+            assertTrue(callsAfter.get(sequence) - callsBefore.get(sequence) <= blocks + 1, sequence);
+        }
+        assertTrue(prepared < ENTITIES / 10, "%d statements prepared".formatted(prepared));
+    }
+
+    private void persistGroup(int group) {
+        Customer customer = Customer.builder()
+                .name("Customer " + group)
+                .email("insert.benchmark." + group + "@kimbocare.com")
+                .age(18 + group % 60)
+                .build();
+        User user = User.builder()
+                .firstName("User")
+                .lastName(String.valueOf(group))
+                .email("insert.benchmark.user." + group + "@kimbocare.com")
+                .enabled(true)
+                .build();
+        Token token = Token.builder()
+                .token("token-" + group)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(15))
+                .user(user)
+                .build();
+        Course course = Course.builder().name("Course " + group).description("Benchmark").build();
+        entityManager.persist(customer);
+        entityManager.persist(user);
+        entityManager.persist(token);
+        entityManager.persist(course);
+        for (int order = 0; order < 2; order++) {
+            Section section = Section.builder().name("Section " + order).sectionOrder(order).course(course).build();
+            entityManager.persist(section);
+            entityManager.persist(Lecture.builder().name("Lecture " + order).section(section).build());
+        }
+    }
+
+    // sequences are not transactional, so the calls made by the rolled back inserts still show
+    private Map<String, Long> sequenceCalls() {
+        Map<String, Long> calls = new LinkedHashMap<>();
+        for (String sequence : SEQUENCES) {
+            calls.put(sequence, jdbcTemplate.queryForObject("""
+                    select (coalesce(last_value, start_value - increment_by) - start_value) / increment_by
+                    from pg_sequences
+                    where sequencename = ?
+                    """, Long.class, sequence));
+        }
+        return calls;
+    }
+}
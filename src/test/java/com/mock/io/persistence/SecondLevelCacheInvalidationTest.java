@@ -0,0 +1,133 @@
+package com.mock.io.persistence;
+
+import com.mock.io.customer.CustomerRepository;
+import com.mock.io.customer.CustomerService;
+import com.mock.io.customer.NewCustomerRequest;
+import com.mock.io.email.EmailService;
+import com.mock.io.exceptions.NotFoundException;
+import com.mock.io.role.RoleRepository;
+import com.mock.io.user.User;
+import com.mock.io.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheInvalidationTest {
+
+    private static final String EMAIL = "cache.invalidation@kimbocare.com";
+
+    @MockBean
+    private EmailService emailService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SecondLevelCacheEvictor secondLevelCacheEvictor;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User auditor = User.builder().id(1).email("auditor@kimbocare.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(auditor, null, List.of())
+        );
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        customerRepository.findByEmail(EMAIL).ifPresent(customerRepository::delete);
+        jdbcTemplate.update("delete from _user where email = ?", EMAIL);
+    }
+
+    @Test
+    void itShouldServeRepeatedCustomerLookupsFromTheQueryCache() {
+        // Given
+        Integer id = customerService.createCustomer(new NewCustomerRequest("Fopa", EMAIL, 30, "secret")).id();
+        customerService.getSingleCustomer(id);
+
+        // When
+        customerService.getSingleCustomer(id);
+
+        // Then
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    void itShouldSeeCustomerUpdatesAndDeletesThroughTheCache() {
+        // Given
+        Integer id = customerService.createCustomer(new NewCustomerRequest("Fopa", EMAIL, 30, "secret")).id();
+        customerService.getSingleCustomer(id);
+
+        // When
+        customerService.updateCustomer(id, new NewCustomerRequest("Kuete", null, null, null));
+
+        // Then
+        assertEquals("Kuete", customerService.getSingleCustomer(id).name());
+
+        // When
+        customerService.deleteCustomer(id);
+
+        // Then
+        assertThrows(NotFoundException.class, () -> customerService.getSingleCustomer(id));
+    }
+
+    @Test
+    void itShouldServeRoleLookupsFromTheQueryCache() {
+        // Given
+        roleRepository.findByName("USER");
+
+        // When
+        roleRepository.findByName("USER");
+
+        // Then
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    void itShouldSeeUsersInsertedWithJdbcAfterACachedMiss() {
+        // Given
+        assertTrue(userRepository.findByEmail(EMAIL).isEmpty());
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("""
+                    insert into _user (id, first_name, last_name, email, password, enabled, locked, created_date)
+                    values (-1, 'Fopa', 'Kuete', ?, 'secret', false, false, now())
+                    """, EMAIL);
+            secondLevelCacheEvictor.invalidateAfterCommit("_user");
+        });
+
+        // Then
+        assertTrue(userRepository.findByEmail(EMAIL).isPresent());
+    }
+}
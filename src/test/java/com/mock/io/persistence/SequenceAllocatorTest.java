@@ -0,0 +1,71 @@
+package com.mock.io.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class SequenceAllocatorTest {
+
+    private SequenceAllocator sequenceAllocator;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        sequenceAllocator = new SequenceAllocator(jdbcTemplate, 3);
+    }
+
+    @Test
+    void itShouldExpandEverySequenceValueIntoTheBlockItEnds() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(2))).thenReturn(List.of(9, 12));
+
+        // When
+        List<Integer> ids = sequenceAllocator.allocate("customer_id_sequence", 5);
+
+        // Then
+        assertEquals(List.of(7, 8, 9, 10, 11), ids);
+    }
+
+    @Test
+    void itShouldFetchAnotherBlockWhenTheFirstValueOfTheSequenceOwnsASingleId() {
+        // Given
+        doReturn(List.of(1)).doReturn(List.of(4))
+                .when(jdbcTemplate).queryForList(anyString(), eq(Integer.class), eq(1));
+
+        // When
+        List<Integer> ids = sequenceAllocator.allocate("customer_id_sequence", 2);
+
+        // Then
+        assertEquals(List.of(1, 2), ids);
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Integer.class), eq(1));
+    }
+
+    @Test
+    void itShouldHandOutSingleIdsFromTheBlockKeptInMemory() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(6, 9);
+
+        // When
+        List<Integer> ids = List.of(
+                sequenceAllocator.nextId("customer_id_sequence"),
+                sequenceAllocator.nextId("customer_id_sequence"),
+                sequenceAllocator.nextId("customer_id_sequence"),
+                sequenceAllocator.nextId("customer_id_sequence")
+        );
+
+        // Then
+        assertEquals(List.of(4, 5, 6, 7), ids);
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Integer.class));
+    }
+}
@@ -0,0 +1,115 @@
+package com.mock.io.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class UserEmailFilterTest {
+
+    private static final int USERS = 10_000;
+
+    private UserEmailFilter emailFilter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        meterRegistry = new SimpleMeterRegistry();
+        emailFilter = new UserEmailFilter(
+                true,
+                0.01,
+                USERS,
+                Duration.ofHours(1),
+                userRepository,
+                transactionTemplate,
+                meterRegistry
+        );
+    }
+
+    @Test
+    void itShouldAskTheDatabaseUntilTheFilterIsBuilt() {
+        // When & Then
+        assertTrue(emailFilter.mightExist("fopa@kimbocare.com"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void itShouldNeverRejectAnExistingEmail() {
+        // Given
+        List<String> emails = emails("user", USERS / 2);
+        when(userRepository.count()).thenReturn((long) emails.size());
+        when(userRepository.streamAllEmails()).thenReturn(emails.stream());
+
+        // When
+        emailFilter.rebuild();
+        emailFilter.add("fopa@kimbocare.com");
+
+        // Then
+        emails.forEach(email -> assertTrue(emailFilter.mightExist(email), email));
+        assertTrue(emailFilter.mightExist("fopa@kimbocare.com"));
+    }
+
+    @Test
+    void itShouldSkipMostLookupsOfNewEmailsAndExposeItsRateAndMemory() {
+        // Given
+        when(userRepository.count()).thenReturn((long) USERS / 2);
+        when(userRepository.streamAllEmails()).thenReturn(emails("user", USERS / 2).stream());
+        emailFilter.rebuild();
+
+        // When
+        long skipped = emails("new", USERS).stream()
+                .filter(email -> !emailFilter.mightExist(email))
+                .count();
+
+        // Then
+        assertTrue(skipped > USERS * 0.98, "skipped " + skipped);
+        double estimatedRate = meterRegistry.get("user.email.filter.false.positive.rate").gauge().value();
+        assertTrue(estimatedRate > 0 && estimatedRate < 0.01, "estimated " + estimatedRate);
+        assertTrue(meterRegistry.get("user.email.filter.memory").gauge().value() > 0);
+    }
+
+    @Test
+    void itShouldKeepEmailsAddedWhileRebuilding() {
+        // Given
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamAllEmails()).thenAnswer(invocation -> {
+            emailFilter.add("registered.during.rebuild@kimbocare.com");
+            return emails("user", 1).stream();
+        });
+
+        // When
+        emailFilter.rebuild();
+
+        // Then
+        assertTrue(emailFilter.mightExist("registered.during.rebuild@kimbocare.com"));
+    }
+
+    private static List<String> emails(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> prefix + i + "@kimbocare.com")
+                .toList();
+    }
+}
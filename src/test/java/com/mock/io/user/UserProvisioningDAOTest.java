@@ -0,0 +1,139 @@
+package com.mock.io.user;
+
+import com.mock.io.auth.RegisterRequest;
+import com.mock.io.persistence.SecondLevelCacheEvictor;
+import com.mock.io.persistence.SequenceAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class UserProvisioningDAOTest {
+
+    private UserProvisioningDAO provisioningDAO;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private SequenceAllocator sequenceAllocator;
+    @Mock
+    private SecondLevelCacheEvictor secondLevelCacheEvictor;
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        provisioningDAO = new UserProvisioningDAO(jdbcTemplate, sequenceAllocator, secondLevelCacheEvictor);
+        when(sequenceAllocator.allocate("user_id_sequence", 3)).thenReturn(List.of(10, 11, 12));
+    }
+
+    @Test
+    void itShouldNotQueryWhenThereIsNoEmailToLookUp() {
+        // When
+        Set<String> existing = provisioningDAO.findExistingEmails(Set.of());
+
+        // Then
+        assertTrue(existing.isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void itShouldLeaveRowsSkippedOnConflictOutOfTheRolesTokensAndReturnedIds() throws SQLException {
+        // Given
+        when(jdbcTemplate.batchUpdate(contains("on conflict (email) do nothing"), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 0, 1});
+        when(sequenceAllocator.allocate("token_id_sequence", 2)).thenReturn(List.of(100, 101));
+
+        // When
+        Map<Integer, Integer> insertedIds = provisioningDAO.insertUsers(
+                List.of(user(0, "fopa@kimbocare.com"), user(1, "taken@kimbocare.com"), user(2, "ivan@kimbocare.com")),
+                1,
+                Duration.ofMinutes(15)
+        );
+
+        // Then
+        assertEquals(Map.of(0, 10, 2, 12), insertedIds);
+        verify(secondLevelCacheEvictor).invalidateAfterCommit("_user");
+
+        BatchPreparedStatementSetter roles = batchOf("insert into user_role");
+        assertEquals(2, roles.getBatchSize());
+        roles.setValues(preparedStatement, 1);
+        verify(preparedStatement).setInt(1, 12);
+        verify(preparedStatement).setInt(2, 1);
+
+        BatchPreparedStatementSetter tokens = batchOf("insert into token");
+        assertEquals(2, tokens.getBatchSize());
+        clearInvocations(preparedStatement);
+        tokens.setValues(preparedStatement, 1);
+        verify(preparedStatement).setInt(1, 101);
+        verify(preparedStatement).setString(2, "code-2");
+        verify(preparedStatement).setInt(5, 12);
+    }
+
+    @Test
+    void itShouldStopOnceEveryRowWasSkippedOnConflict() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{0, 0, 0});
+
+        // When
+        Map<Integer, Integer> insertedIds = provisioningDAO.insertUsers(
+                List.of(user(0, "a@kimbocare.com"), user(1, "b@kimbocare.com"), user(2, "c@kimbocare.com")),
+                1,
+                Duration.ofMinutes(15)
+        );
+
+        // Then
+        assertTrue(insertedIds.isEmpty());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        verifyNoInteractions(secondLevelCacheEvictor);
+    }
+
+    @Test
+    void itShouldNotInsertTokensForUsersWithoutAnActivationCode() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 1, 1});
+        List<ProvisionedUser> users = List.of(
+                new ProvisionedUser(0, request("a@kimbocare.com"), "hash", null),
+                new ProvisionedUser(1, request("b@kimbocare.com"), "hash", null),
+                new ProvisionedUser(2, request("c@kimbocare.com"), "hash", null)
+        );
+
+        // When
+        provisioningDAO.insertUsers(users, 1, Duration.ofMinutes(15));
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        verify(sequenceAllocator, never()).allocate(eq("token_id_sequence"), anyInt());
+    }
+
+    private BatchPreparedStatementSetter batchOf(String statement) {
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(statement), setter.capture());
+        return setter.getValue();
+    }
+
+    private static ProvisionedUser user(int index, String email) {
+        return new ProvisionedUser(index, request(email), "hash", "code-" + index);
+    }
+
+    private static RegisterRequest request(String email) {
+        return new RegisterRequest("Fopa", "Kuete", email, "Password@1");
+    }
+}
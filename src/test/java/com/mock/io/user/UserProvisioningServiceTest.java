@@ -0,0 +1,207 @@
+package com.mock.io.user;
+
+import com.mock.io.auth.ActivationCodeGenerator;
+import com.mock.io.auth.ActivationMode;
+import com.mock.io.auth.ActivationTokenSigner;
+import com.mock.io.auth.RegisterRequest;
+import com.mock.io.email.EmailRequest;
+import com.mock.io.email.EmailService;
+import com.mock.io.exceptions.ObjectNotValidException;
+import com.mock.io.role.Role;
+import com.mock.io.role.RoleRepository;
+import com.mock.io.validators.ObjectsValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class UserProvisioningServiceTest {
+
+    private UserProvisioningService provisioningService;
+
+    @Mock
+    private UserProvisioningDAO provisioningDAO;
+    @Mock
+    private RoleRepository roleRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private ActivationCodeGenerator activationCodeGenerator;
+    @Mock
+    private ActivationTokenSigner activationTokenSigner;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private UserEmailFilter userEmailFilter;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        provisioningService = new UserProvisioningService(
+                provisioningDAO,
+                roleRepository,
+                passwordEncoder,
+                activationCodeGenerator,
+                activationTokenSigner,
+                emailService,
+                new ObjectsValidator<>(),
+                userEmailFilter
+        );
+        ReflectionTestUtils.setField(provisioningService, "activationUrl", "http://localhost:4200/activate-account");
+        ReflectionTestUtils.setField(provisioningService, "activationMode", ActivationMode.TOKEN);
+        ReflectionTestUtils.setField(provisioningService, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(provisioningService, "hashingThreads", 2);
+        provisioningService.startHashingExecutor();
+
+        when(roleRepository.findByName("USER")).thenReturn(Optional.of(Role.builder().id(1).name("USER").build()));
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hashed:" + invocation.getArgument(0));
+        when(activationCodeGenerator.generate()).thenReturn("111111", "111111", "222222", "333333");
+        when(userEmailFilter.mightExist(anyString())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provisioningService.stopHashingExecutor();
+    }
+
+    @Test
+    void itShouldRejectABatchLargerThanTheConfiguredMaximum() {
+        // Given
+        BulkProvisioningRequest request = new BulkProvisioningRequest(List.of(
+                user("fopa@kimbocare.com"),
+                user("ivan@kimbocare.com"),
+                user("jane@kimbocare.com"),
+                user("john@kimbocare.com")
+        ));
+
+        // When & Then
+        assertThrows(ObjectNotValidException.class, () -> provisioningService.provisionUsers(request));
+        verifyNoInteractions(provisioningDAO);
+    }
+
+    @Test
+    void itShouldReportEveryRejectedUserAtItsIndexAndInsertTheOthers() {
+        // Given
+        when(provisioningDAO.findExistingEmails(any())).thenReturn(Set.of("taken@kimbocare.com"));
+        when(provisioningDAO.insertUsers(anyList(), eq(1), any())).thenReturn(Map.of(0, 42));
+        BulkProvisioningRequest request = new BulkProvisioningRequest(Arrays.asList(
+                user("fopa@kimbocare.com"),
+                user("fopa@kimbocare.com"),
+                user("taken@kimbocare.com")
+        ));
+
+        // When
+        BulkProvisioningResponse response = provisioningService.provisionUsers(request);
+
+        // Then
+        assertEquals(1, response.created());
+        assertEquals(2, response.failed());
+        assertEquals(ProvisioningStatus.CREATED, response.results().get(0).status());
+        assertEquals(42, response.results().get(0).userId());
+        assertEquals(ProvisioningStatus.DUPLICATE_IN_BATCH, response.results().get(1).status());
+        assertEquals(ProvisioningStatus.EMAIL_TAKEN, response.results().get(2).status());
+    }
+
+    @Test
+    void itShouldReportInvalidAndNullUsersWithoutHashingTheirPassword() {
+        // Given
+        when(provisioningDAO.findExistingEmails(any())).thenReturn(Set.of());
+        BulkProvisioningRequest request = new BulkProvisioningRequest(Arrays.asList(
+                null,
+                new RegisterRequest("Fopa", "Kuete", "not-an-email", "Password@1")
+        ));
+
+        // When
+        BulkProvisioningResponse response = provisioningService.provisionUsers(request);
+
+        // Then
+        assertEquals(0, response.created());
+        assertEquals(ProvisioningStatus.INVALID, response.results().get(0).status());
+        assertEquals(ProvisioningStatus.INVALID, response.results().get(1).status());
+        verifyNoInteractions(passwordEncoder);
+        verify(provisioningDAO, never()).insertUsers(anyList(), any(), any());
+    }
+
+    @Test
+    void itShouldNotQueryEmailsTheFilterKnowsAreFree() {
+        // Given
+        when(userEmailFilter.mightExist("fopa@kimbocare.com")).thenReturn(false);
+        when(provisioningDAO.findExistingEmails(any())).thenReturn(Set.of());
+        when(provisioningDAO.insertUsers(anyList(), eq(1), any())).thenReturn(Map.of(0, 42));
+
+        // When
+        provisioningService.provisionUsers(new BulkProvisioningRequest(List.of(user("fopa@kimbocare.com"))));
+
+        // Then
+        verify(provisioningDAO).findExistingEmails(Set.of());
+        verify(userEmailFilter).add("fopa@kimbocare.com");
+    }
+
+    @Test
+    void itShouldReportUsersSkippedByTheInsertAsTakenAndOnlyMailTheInsertedOnes() {
+        // Given
+        when(provisioningDAO.findExistingEmails(any())).thenReturn(Set.of());
+        when(provisioningDAO.insertUsers(anyList(), eq(1), any())).thenReturn(Map.of(1, 43));
+        BulkProvisioningRequest request = new BulkProvisioningRequest(List.of(
+                user("fopa@kimbocare.com"),
+                user("ivan@kimbocare.com")
+        ));
+
+        // When
+        BulkProvisioningResponse response = provisioningService.provisionUsers(request);
+
+        // Then
+        assertEquals(ProvisioningStatus.EMAIL_TAKEN, response.results().get(0).status());
+        assertEquals(ProvisioningStatus.CREATED, response.results().get(1).status());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailRequest>> emails = ArgumentCaptor.forClass(List.class);
+        verify(emailService).sendEmails(emails.capture());
+        assertEquals(1, emails.getValue().size());
+        assertEquals("ivan@kimbocare.com", emails.getValue().get(0).to());
+        verify(userEmailFilter, never()).add("fopa@kimbocare.com");
+    }
+
+    @Test
+    void itShouldHashPasswordsAndGiveEveryUserADistinctActivationCode() {
+        // Given
+        when(provisioningDAO.findExistingEmails(any())).thenReturn(Set.of());
+        when(provisioningDAO.insertUsers(anyList(), eq(1), any())).thenReturn(Map.of(0, 42, 1, 43));
+
+        // When
+        provisioningService.provisionUsers(new BulkProvisioningRequest(List.of(
+                user("fopa@kimbocare.com"),
+                user("ivan@kimbocare.com")
+        )));
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProvisionedUser>> provisioned = ArgumentCaptor.forClass(List.class);
+        verify(provisioningDAO).insertUsers(provisioned.capture(), eq(1), any());
+        List<String> codes = new ArrayList<>();
+        for (ProvisionedUser user : provisioned.getValue()) {
+            assertEquals("hashed:Password@1", user.passwordHash());
+            codes.add(user.activationCode());
+        }
+        assertEquals(List.of("111111", "222222"), codes);
+    }
+
+    private static RegisterRequest user(String email) {
+        return new RegisterRequest("Fopa", "Kuete", email, "Password@1");
+    }
+}